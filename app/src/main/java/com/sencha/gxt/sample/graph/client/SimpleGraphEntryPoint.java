@@ -0,0 +1,812 @@
+package com.sencha.gxt.sample.graph.client;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.google.gwt.core.client.EntryPoint;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.GWT.UncaughtExceptionHandler;
+import com.google.gwt.event.logical.shared.SelectionEvent;
+import com.google.gwt.event.logical.shared.SelectionHandler;
+import com.google.gwt.event.logical.shared.ValueChangeEvent;
+import com.google.gwt.event.logical.shared.ValueChangeHandler;
+import com.google.gwt.i18n.client.NumberFormat;
+import com.google.gwt.safehtml.shared.SafeHtml;
+import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
+import com.google.gwt.user.client.Timer;
+import com.google.gwt.user.client.Window;
+import com.google.gwt.user.client.ui.HTML;
+import com.google.gwt.user.client.ui.RootPanel;
+import com.sencha.gxt.chart.client.draw.RGB;
+import com.sencha.gxt.chart.client.draw.path.LineTo;
+import com.sencha.gxt.chart.client.draw.path.MoveTo;
+import com.sencha.gxt.chart.client.draw.path.PathCommand;
+import com.sencha.gxt.chart.client.draw.path.PathSprite;
+import com.sencha.gxt.chart.client.draw.sprite.CircleSprite;
+import com.sencha.gxt.core.client.XTemplates;
+import com.sencha.gxt.core.client.util.PrecisePoint;
+import com.sencha.gxt.sample.graph.client.draw.CreateNodeDnD;
+import com.sencha.gxt.sample.graph.client.draw.GraphComponent;
+import com.sencha.gxt.sample.graph.client.draw.GraphComponent.BatchEdgeRenderer;
+import com.sencha.gxt.sample.graph.client.draw.GraphComponent.DetailLevel;
+import com.sencha.gxt.sample.graph.client.draw.GraphComponent.EdgeRenderer;
+import com.sencha.gxt.sample.graph.client.draw.GraphComponent.NodeRenderer;
+import com.sencha.gxt.sample.graph.client.draw.GraphComponent.RenderContext;
+import com.sencha.gxt.sample.graph.client.draw.GraphMetrics;
+import com.sencha.gxt.sample.graph.client.draw.GraphMetrics.Phase;
+import com.sencha.gxt.sample.graph.client.draw.NodeConnectionDnD;
+import com.sencha.gxt.sample.graph.client.draw.NodePositionDnD;
+import com.sencha.gxt.sample.graph.client.draw.PanGraphDnD;
+import com.sencha.gxt.sample.graph.client.draw.RollingHistogram;
+import com.sencha.gxt.sample.graph.client.layout.AdaptiveIntegrator;
+import com.sencha.gxt.sample.graph.client.layout.ComponentLayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.ComponentLayoutEngine.EngineFactory;
+import com.sencha.gxt.sample.graph.client.layout.DefaultForceModel;
+import com.sencha.gxt.sample.graph.client.layout.EulerIntegrator;
+import com.sencha.gxt.sample.graph.client.layout.ForceAtlas2ForceModel;
+import com.sencha.gxt.sample.graph.client.layout.ForceDirectedLayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.ForceDirectedLayoutEngine.RepulsionMode;
+import com.sencha.gxt.sample.graph.client.layout.ForceModel;
+import com.sencha.gxt.sample.graph.client.layout.FruchtermanReingoldForceModel;
+import com.sencha.gxt.sample.graph.client.layout.Integrator;
+import com.sencha.gxt.sample.graph.client.layout.LayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.LinLogForceModel;
+import com.sencha.gxt.sample.graph.client.layout.MultilevelLayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.PivotMdsPlacement;
+import com.sencha.gxt.sample.graph.client.layout.VerletIntegrator;
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+import com.sencha.gxt.widget.core.client.Slider;
+import com.sencha.gxt.widget.core.client.button.TextButton;
+import com.sencha.gxt.widget.core.client.button.ToggleButton;
+import com.sencha.gxt.widget.core.client.container.VerticalLayoutContainer;
+import com.sencha.gxt.widget.core.client.container.VerticalLayoutContainer.VerticalLayoutData;
+import com.sencha.gxt.widget.core.client.container.Viewport;
+import com.sencha.gxt.widget.core.client.event.CheckChangeEvent;
+import com.sencha.gxt.widget.core.client.event.CheckChangeEvent.CheckChangeHandler;
+import com.sencha.gxt.widget.core.client.menu.CheckMenuItem;
+import com.sencha.gxt.widget.core.client.menu.Menu;
+import com.sencha.gxt.widget.core.client.menu.MenuItem;
+import com.sencha.gxt.widget.core.client.toolbar.ToolBar;
+import com.sencha.gxt.widget.core.client.tree.Tree.CheckState;
+
+public class SimpleGraphEntryPoint implements EntryPoint {
+  public interface AnimationSpeedTemplate extends XTemplates {
+    @XTemplate("<div style='background-color:{[intervalMs < 17 ? \"green\" : (intervalMs < 30 ? \"yellow\" : \"red\")]};position:absolute;bottom:0;right:0'>" +
+            "{intervalMs:number(\"#,##0.00\")}ms/frame, {ticksPerFrame:number(\"#,##0.0\")} steps/frame, {overruns} overruns" +
+            "</div>")
+    SafeHtml render(double intervalMs, double ticksPerFrame, int overruns);
+  }
+  private int frameCount = 0;
+  private int tickCount = 0;
+  private int lastTime = 0;
+  private GraphComponent<Node,Edge> graph;
+  private final ForceDirectedLayoutEngine layoutEngine = new ForceDirectedLayoutEngine();
+  private final MultilevelLayoutEngine multilevelEngine = new MultilevelLayoutEngine(layoutEngine);
+  private final ComponentLayoutEngine componentEngine = new ComponentLayoutEngine(new EngineFactory() {
+    @Override
+    public LayoutEngine create() {
+      //each component gets an engine of its own set up like the shared one, so per-layout state isn't mixed up
+      ForceDirectedLayoutEngine engine = new ForceDirectedLayoutEngine();
+      engine.setRepulsionMode(layoutEngine.getRepulsionMode());
+      engine.setTheta(layoutEngine.getTheta());
+      engine.setCutoff(layoutEngine.getCutoff());
+      engine.setGridGravity(layoutEngine.getGridGravity());
+      engine.setForceModel(layoutEngine.getForceModel());
+      engine.setIntegrator(layoutEngine.getIntegrator() instanceof AdaptiveIntegrator
+          ? new AdaptiveIntegrator() : layoutEngine.getIntegrator());
+      return multilevelEnabled ? new MultilevelLayoutEngine(engine) : engine;
+    }
+  });
+  private final PivotMdsPlacement initialPlacement = new PivotMdsPlacement();
+  private boolean multilevelEnabled;
+  private boolean seeded;
+  private boolean componentsEnabled;
+  private boolean showMetrics;
+
+  public void onModuleLoad() {
+    GWT.setUncaughtExceptionHandler(new UncaughtExceptionHandler() {
+      @Override
+      public void onUncaughtException(Throwable e) {
+        Window.alert(e.getMessage());
+      }
+    });
+    Viewport vp = new Viewport();
+
+    VerticalLayoutContainer vlc = new VerticalLayoutContainer();
+
+    graph = new GraphComponent<Node, Edge>() {
+      @Override
+      protected void render() {
+        super.render();
+        frameCount++;
+        tickCount += getLastFrameTicks();
+      }
+    };
+    graph.setBackground(null);
+    layoutEngine.setIntegrator(new VerletIntegrator());
+    layoutEngine.setGridGravity(0.001);
+    graph.setLayoutEngine(layoutEngine);
+    graph.setNodeRenderer(new NodeRenderer<Node>() {
+      public void render(Node node, PrecisePoint coords, RenderContext context) {
+        CircleSprite circleSprite = (CircleSprite)context.getSprites().get(0);
+        if (circleSprite == null) {
+          circleSprite = context.reuseSprite(CircleSprite.class);
+          if (circleSprite == null) {
+            circleSprite = new CircleSprite();
+          }
+          context.useSprite(circleSprite);
+        }
+        //past full detail, nodes are drawn as small dots
+        int radius = context.getDetailLevel() == DetailLevel.FULL ? 30 : 3;
+        if (circleSprite.getRadius() != radius) {
+          circleSprite.setRadius(radius);
+        }
+        circleSprite.setCenterX((int) Math.round(coords.getX()));
+        circleSprite.setCenterY((int) Math.round(coords.getY()));
+      }
+    });
+    graph.setEdgeRenderer(new EdgeRenderer<Edge>() {
+      public void render(Edge edge, PrecisePoint start, PrecisePoint end, RenderContext context) {
+        PathSprite sprite = (PathSprite) context.getSprites().get(0);
+        if (sprite == null) {
+          sprite = context.reuseSprite(PathSprite.class);
+          if (sprite == null) {
+            sprite = new PathSprite();
+          }
+          sprite.setStroke(RGB.BLUE);
+          //a reused path may have been drawn by the batch renderer
+          if (sprite.getCommands().size() != 2) {
+            sprite.clearCommands();
+            sprite.addCommand(new MoveTo());
+            sprite.addCommand(new LineTo());
+          }
+          context.useSprite(sprite);
+        }
+        MoveTo moveTo = (MoveTo) sprite.getCommand(0);
+        LineTo lineTo = (LineTo) sprite.getCommand(1);
+        int startX = (int) Math.round(start.getX()), startY = (int) Math.round(start.getY());
+        int endX = (int) Math.round(end.getX()), endY = (int) Math.round(end.getY());
+        if (moveTo.getX() != startX || moveTo.getY() != startY || lineTo.getX() != endX || lineTo.getY() != endY) {
+          moveTo.setX(startX);
+          moveTo.setY(startY);
+          lineTo.setX(endX);
+          lineTo.setY(endY);
+
+          //the commands were changed in place, so mark the path dirty without replacing them
+          sprite.setCommand(0, moveTo);
+        }
+      }
+    });
+
+
+    createStartingGraph();
+
+    vlc.add(graph, new VerticalLayoutData(1,1));
+
+    ToolBar controls = new ToolBar();
+    ToggleButton animateBtn = new ToggleButton("Animate");
+    animateBtn.addValueChangeHandler(new ValueChangeHandler<Boolean>() {
+      @Override
+      public void onValueChange(ValueChangeEvent<Boolean> event) {
+        graph.setAnimationEnabled(event.getValue());
+      }
+    });
+    animateBtn.setValue(true, true);
+    controls.add(animateBtn);
+
+    ToggleButton metricsBtn = new ToggleButton("Metrics");
+    metricsBtn.setToolTip("Show where the time in each frame goes");
+    metricsBtn.addValueChangeHandler(new ValueChangeHandler<Boolean>() {
+      @Override
+      public void onValueChange(ValueChangeEvent<Boolean> event) {
+        showMetrics = event.getValue();
+      }
+    });
+    controls.add(metricsBtn);
+
+    Slider nodeDistance = new Slider();
+    nodeDistance.setMaxValue(200);
+    nodeDistance.setIncrement(5);
+    nodeDistance.setToolTip("Distance between nodes");
+    nodeDistance.addValueChangeHandler(new ValueChangeHandler<Integer>() {
+      @Override
+      public void onValueChange(ValueChangeEvent<Integer> event) {
+        graph.setNodeDist(event.getValue());
+      }
+    });
+    nodeDistance.setValue(50, true);
+    controls.add(nodeDistance);
+
+    TextButton tool = new TextButton("Tool");
+    tool.setMenu(new Menu());
+    controls.add(tool);
+
+    final NodePositionDnD<Node, Edge> dragBehavior = new NodePositionDnD<Node, Edge>(graph);
+    dragBehavior.release();
+    CheckMenuItem drag = new CheckMenuItem("Drag Node");
+    drag.setGroup("tools");
+    drag.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+      @Override
+      public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+        if (event.getChecked().equals(CheckState.CHECKED)) {
+          dragBehavior.attach();
+        } else {
+          dragBehavior.release();
+        }
+      }
+    });
+    tool.getMenu().add(drag);
+
+    final NodeConnectionDnD<Node, Edge> connectBehavior = new NodeConnectionDnD<Node, Edge>(graph);
+    connectBehavior.release();
+    CheckMenuItem connect = new CheckMenuItem("Connect Existing Nodes");
+    connect.setGroup("tools");
+    connect.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+      @Override
+      public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+        if (event.getChecked().equals(CheckState.CHECKED)) {
+          connectBehavior.attach();
+        } else {
+          connectBehavior.release();
+        }
+      }
+    });
+    tool.getMenu().add(connect);
+
+    final CreateNodeDnD<Node, Edge> createBehavior = new CreateNodeDnD<Node, Edge>(graph);
+    createBehavior.release();
+    CheckMenuItem create = new CheckMenuItem("Create and Connect Node");
+    create.setGroup("tools");
+    create.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+      @Override
+      public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+        if (event.getChecked().equals(CheckState.CHECKED)) {
+          createBehavior.attach();
+        } else {
+          createBehavior.release();
+        }
+      }
+    });
+    tool.getMenu().add(create);
+
+    final PanGraphDnD<Node, Edge> panBehavior = new PanGraphDnD<Node, Edge>(graph);
+    panBehavior.release();
+    CheckMenuItem pan = new CheckMenuItem("Pan graph");
+    pan.setGroup("tools");
+    pan.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+      @Override
+      public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+        if (event.getChecked().equals(CheckState.CHECKED)) {
+          panBehavior.attach();
+        } else {
+          panBehavior.release();
+        }
+      }
+    });
+    tool.getMenu().add(pan);
+
+    TextButton generate = new TextButton("Generate");
+    generate.setMenu(new Menu());
+    controls.add(generate);
+
+    generate.getMenu().add(new MenuItem("Starting point", new SelectionHandler<MenuItem>() {
+      @Override
+      public void onSelection(SelectionEvent<MenuItem> event) {
+        createStartingGraph();
+      }
+    }));
+    generate.getMenu().add(createRingMenu());
+    generate.getMenu().add(createMeshMenu());
+    generate.getMenu().add(createStarMenu());
+
+    TextButton layout = new TextButton("Layout");
+    layout.setMenu(new Menu());
+    controls.add(layout);
+
+    String[] repulsionNames = {"Exact repulsion", "Barnes-Hut repulsion", "Grid repulsion (cutoff)"};
+    for (final RepulsionMode mode : RepulsionMode.values()) {
+      CheckMenuItem item = new CheckMenuItem(repulsionNames[mode.ordinal()]);
+      item.setGroup("repulsion");
+      item.setChecked(layoutEngine.getRepulsionMode() == mode);
+      item.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+        @Override
+        public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+          if (event.getChecked().equals(CheckState.CHECKED)) {
+            layoutEngine.setRepulsionMode(mode);
+            layoutSettingsChanged();
+          }
+        }
+      });
+      layout.getMenu().add(item);
+    }
+    layout.getMenu().add(createThetaMenu());
+    layout.getMenu().add(createIntegratorMenu());
+    layout.getMenu().add(createForceModelMenu());
+
+    CheckMenuItem multilevel = new CheckMenuItem("Multilevel");
+    multilevel.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+      @Override
+      public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+        multilevelEnabled = event.getChecked().equals(CheckState.CHECKED);
+        updateLayoutEngine();
+      }
+    });
+    layout.getMenu().add(multilevel);
+
+    CheckMenuItem components = new CheckMenuItem("Separate components");
+    components.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+      @Override
+      public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+        componentsEnabled = event.getChecked().equals(CheckState.CHECKED);
+        updateLayoutEngine();
+      }
+    });
+    layout.getMenu().add(components);
+
+    CheckMenuItem seededItem = new CheckMenuItem("Seeded random");
+    seededItem.setToolTip("Generate graphs the same way every time, for comparing layouts");
+    seededItem.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+      @Override
+      public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+        seeded = event.getChecked().equals(CheckState.CHECKED);
+      }
+    });
+    layout.getMenu().add(seededItem);
+
+    TextButton view = new TextButton("View");
+    view.setMenu(new Menu());
+    controls.add(view);
+
+    final BatchEdgeRenderer batchEdgeRenderer = createBatchEdgeRenderer();
+    CheckMenuItem batchEdges = new CheckMenuItem("Batch edges");
+    batchEdges.setToolTip("Draw every edge as part of one path, rather than a path each");
+    batchEdges.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+      @Override
+      public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+        boolean batch = event.getChecked().equals(CheckState.CHECKED);
+        graph.setBatchEdgeRenderer(batch ? batchEdgeRenderer : null);
+      }
+    });
+    view.getMenu().add(batchEdges);
+
+    CheckMenuItem reduceDetail = new CheckMenuItem("Reduce detail");
+    reduceDetail.setToolTip("Draw nodes as dots and sample edges when many nodes are in view");
+    reduceDetail.setChecked(true);
+    reduceDetail.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+      @Override
+      public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+        boolean reduce = event.getChecked().equals(CheckState.CHECKED);
+        graph.setFixedDetailLevel(reduce ? null : DetailLevel.FULL);
+      }
+    });
+    view.getMenu().add(reduceDetail);
+
+    graph.setWheelZoomEnabled(true);
+    CheckMenuItem wheelZoom = new CheckMenuItem("Wheel zoom");
+    wheelZoom.setToolTip("Zoom around the mouse with its wheel, instead of scrolling the page");
+    wheelZoom.setChecked(true);
+    wheelZoom.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+      @Override
+      public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+        graph.setWheelZoomEnabled(event.getChecked().equals(CheckState.CHECKED));
+      }
+    });
+    view.getMenu().add(wheelZoom);
+
+    view.getMenu().add(new MenuItem("Reset zoom", new SelectionHandler<MenuItem>() {
+      @Override
+      public void onSelection(SelectionEvent<MenuItem> event) {
+        graph.setCamera(0, 0, 1);
+      }
+    }));
+
+    vlc.add(controls, new VerticalLayoutData(1, -1));
+
+    vp.setWidget(vlc);
+
+    RootPanel.get().add(vp);
+    final HTML html = new HTML("<div style='position:absolute;bottom:0;right:0'>Waiting...</div>");
+    RootPanel.get().add(html);
+    new Timer() {
+      @Override
+      public void run() {
+        int currentTime = getCurrentTimeInt();
+        double delay = currentTime - lastTime;
+        if (frameCount == 0) {
+          //nothing drawn, either animation is off or the layout has settled
+          html.setHTML("<div style='position:absolute;bottom:0;right:0'>" + (graph.isSleeping() ? "Settled" : "Idle") + "</div>");
+        } else {
+          AnimationSpeedTemplate tpl = GWT.create(AnimationSpeedTemplate.class);
+          SafeHtmlBuilder builder = new SafeHtmlBuilder();
+          if (showMetrics) {
+            builder.append(renderMetrics(graph.getMetrics(), graph.getDetailLevel(), graph.getPooledSpriteCount()));
+          }
+          builder.append(tpl.render(delay/frameCount, (double) tickCount/frameCount, graph.getFrameOverrunCount()));
+          html.setHTML(builder.toSafeHtml());
+        }
+        lastTime = currentTime;
+        frameCount = 0;
+        tickCount = 0;
+      }
+    }.scheduleRepeating(1000);
+  }
+
+  /**
+   * Creates a renderer drawing every edge as a move and a line in a single path, reusing the path's
+   * commands from one frame to the next.
+   */
+  private BatchEdgeRenderer createBatchEdgeRenderer() {
+    return new BatchEdgeRenderer() {
+      @Override
+      public void render(double[] segments, int[] edgeIndexes, int count, RenderContext context) {
+        PathSprite sprite = (PathSprite) context.getSprites().get(0);
+        if (sprite == null) {
+          sprite = context.reuseSprite(PathSprite.class);
+          if (sprite == null) {
+            sprite = new PathSprite();
+          }
+          sprite.setStroke(RGB.BLUE);
+          context.useSprite(sprite);
+        }
+        List<PathCommand> commands = sprite.getCommands();
+        while (commands.size() > 2 * count) {
+          sprite.removeCommand(commands.size() - 1);
+        }
+        while (commands.size() < 2 * count) {
+          sprite.addCommand(new MoveTo());
+          sprite.addCommand(new LineTo());
+        }
+        for (int i = 0; i < count; i++) {
+          MoveTo moveTo = (MoveTo) commands.get(2 * i);
+          LineTo lineTo = (LineTo) commands.get(2 * i + 1);
+          moveTo.setX(Math.round(segments[4 * i]));
+          moveTo.setY(Math.round(segments[4 * i + 1]));
+          lineTo.setX(Math.round(segments[4 * i + 2]));
+          lineTo.setY(Math.round(segments[4 * i + 3]));
+        }
+        if (count > 0) {
+          //the commands were changed in place, so mark the path dirty without replacing them
+          sprite.setCommand(0, commands.get(0));
+        }
+        sprite.setHidden(count == 0);
+      }
+    };
+  }
+
+  /**
+   * Describes the time spent in each phase of recent frames, and the state of the graph at the last one.
+   */
+  private SafeHtml renderMetrics(GraphMetrics metrics, DetailLevel detailLevel, int pooledSprites) {
+    NumberFormat ms = NumberFormat.getFormat("#,##0.00");
+    SafeHtmlBuilder builder = new SafeHtmlBuilder();
+    builder.appendHtmlConstant("<div style='position:absolute;bottom:1.5em;right:0;background-color:white;"
+        + "font-family:monospace;white-space:pre;text-align:right'>");
+    builder.appendEscaped("ms/frame      mean    p95    max\n");
+    for (Phase phase : Phase.values()) {
+      RollingHistogram histogram = metrics.getHistogram(phase);
+      builder.appendEscaped(pad(phase.name().toLowerCase(), 11)
+          + pad(ms.format(histogram.getMean()), 7)
+          + pad(ms.format(histogram.getPercentile(0.95)), 7)
+          + pad(ms.format(histogram.getMax()), 7) + "\n");
+    }
+    builder.appendEscaped(metrics.getNodeCount() + " nodes, " + metrics.getEdgeCount() + " edges, energy "
+        + ms.format(metrics.getKineticEnergy()) + "\n");
+    builder.appendEscaped("rendered " + metrics.getLastFrameNodesRendered() + " nodes, "
+        + metrics.getLastFrameEdgesRendered() + " edges last frame, detail "
+        + detailLevel.name().toLowerCase() + "\n");
+    builder.appendEscaped("sprites +" + metrics.getLastFrameSpritesCreated() + " ~"
+        + metrics.getLastFrameSpritesReused() + " -" + metrics.getLastFrameSpritesReleased() + " last frame, "
+        + metrics.getSpritesCreated() + " created, " + metrics.getSpritesReused() + " reused, "
+        + metrics.getSpritesReleased() + " released, " + pooledSprites + " pooled");
+    builder.appendHtmlConstant("</div>");
+    return builder.toSafeHtml();
+  }
+
+  private static String pad(String value, int width) {
+    StringBuilder padded = new StringBuilder();
+    for (int i = value.length(); i < width; i++) {
+      padded.append(' ');
+    }
+    return padded.append(value).toString();
+  }
+
+  private void updateLayoutEngine() {
+    if (componentsEnabled) {
+      componentEngine.invalidate();
+      graph.setLayoutEngine(componentEngine);
+    } else if (multilevelEnabled) {
+      multilevelEngine.invalidate();
+      graph.setLayoutEngine(multilevelEngine);
+    } else {
+      graph.setLayoutEngine(layoutEngine);
+    }
+  }
+
+  private void layoutSettingsChanged() {
+    //per-component engines copy the settings when created, so have them made again
+    componentEngine.invalidate();
+    graph.wake();
+  }
+
+  private native int getCurrentTimeInt() /*-{
+      return new Date().getTime();
+  }-*/;
+
+  private void createStartingGraph() {
+    graph.beginUpdate();
+    clearGraph();
+
+    Node n1 = new Node(1);
+    Node n2 = new Node(2);
+    Node n3 = new Node(3);
+    Node n4 = new Node(4);
+    Node n5 = new Node(5);
+    Node n6 = new Node(6);
+    Node n7 = new Node(7);
+    Node n8 = new Node(8);
+    Node n9 = new Node(9);
+    Node n10 = new Node(10);
+    Node n11 = new Node(11);
+
+    graph.addNode(n1);
+    graph.addNode(n2);
+    graph.addNode(n3);
+    graph.addNode(n4);
+    graph.addNode(n5);
+    graph.addNode(n6);
+    graph.addNode(n7);
+    graph.addNode(n8);
+    graph.addNode(n9);
+    graph.addNode(n10);
+    graph.addNode(n11);
+
+    graph.addEdge(new Edge(n1, n2));
+    graph.addEdge(new Edge(n1, n3));
+    graph.addEdge(new Edge(n2, n3));
+    graph.addEdge(new Edge(n3, n4));
+    graph.addEdge(new Edge(n1, n5));
+    graph.addEdge(new Edge(n2, n6));
+    graph.addEdge(new Edge(n3, n7));
+    graph.addEdge(new Edge(n4, n8));
+    graph.addEdge(new Edge(n4, n9));
+    graph.addEdge(new Edge(n4, n10));
+    graph.addEdge(new Edge(n4, n11));
+    graph.endUpdate();
+  }
+  private MenuItem createThetaMenu() {
+    Menu menu = new Menu();
+
+    double[] thetas = {0.3, 0.5, 0.8, 1.2, 2.0};
+    for (final double theta : thetas) {
+      CheckMenuItem item = new CheckMenuItem("" + theta);
+      item.setGroup("theta");
+      item.setChecked(layoutEngine.getTheta() == theta);
+      item.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+        @Override
+        public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+          if (event.getChecked().equals(CheckState.CHECKED)) {
+            layoutEngine.setTheta(theta);
+            layoutSettingsChanged();
+          }
+        }
+      });
+      menu.add(item);
+    }
+
+    MenuItem item = new MenuItem("Barnes-Hut theta");
+    item.setSubMenu(menu);
+    return item;
+  }
+  private MenuItem createIntegratorMenu() {
+    Menu menu = new Menu();
+
+    Integrator[] integrators = {new EulerIntegrator(), new VerletIntegrator(), new AdaptiveIntegrator()};
+    String[] names = {"Euler", "Velocity Verlet", "Adaptive (ForceAtlas2)"};
+    for (int i = 0; i < integrators.length; i++) {
+      final Integrator integrator = integrators[i];
+      CheckMenuItem item = new CheckMenuItem(names[i]);
+      item.setGroup("integrator");
+      item.setChecked(layoutEngine.getIntegrator().getClass() == integrator.getClass());
+      item.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+        @Override
+        public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+          if (event.getChecked().equals(CheckState.CHECKED)) {
+            layoutEngine.setIntegrator(integrator);
+            layoutSettingsChanged();
+          }
+        }
+      });
+      menu.add(item);
+    }
+
+    MenuItem item = new MenuItem("Integrator");
+    item.setSubMenu(menu);
+    return item;
+  }
+  private MenuItem createForceModelMenu() {
+    Menu menu = new Menu();
+
+    ForceModel[] models = {new DefaultForceModel(), new FruchtermanReingoldForceModel(),
+        new ForceAtlas2ForceModel(), new LinLogForceModel()};
+    String[] names = {"Default", "Fruchterman-Reingold", "ForceAtlas2", "LinLog"};
+    for (int i = 0; i < models.length; i++) {
+      final ForceModel model = models[i];
+      CheckMenuItem item = new CheckMenuItem(names[i]);
+      item.setGroup("forceModel");
+      item.setChecked(layoutEngine.getForceModel().getClass() == model.getClass());
+      item.addCheckChangeHandler(new CheckChangeHandler<CheckMenuItem>() {
+        @Override
+        public void onCheckChange(CheckChangeEvent<CheckMenuItem> event) {
+          if (event.getChecked().equals(CheckState.CHECKED)) {
+            layoutEngine.setForceModel(model);
+            layoutSettingsChanged();
+          }
+        }
+      });
+      menu.add(item);
+    }
+
+    MenuItem item = new MenuItem("Force model");
+    item.setSubMenu(menu);
+    return item;
+  }
+  private MenuItem createRingMenu() {
+    Menu menu = new Menu();
+
+    for (int i = 1; i < 8; i++) {
+      final int count = (int)Math.pow(2, i);
+      menu.add(new MenuItem("" + count, new SelectionHandler<MenuItem>() {
+        @Override
+        public void onSelection(SelectionEvent<MenuItem> event) {
+          createRing(count);
+        }
+      }));
+    }
+
+    MenuItem item = new MenuItem("Ring");
+    item.setSubMenu(menu);
+    return item;
+  }
+  private void createRing(int size) {
+    graph.beginUpdate();
+    try {
+      clearGraph();
+      if (size == 0) {
+        return;
+      }
+      Node start = new Node(0);
+      graph.addNode(start);
+      if (size == 1) {
+        return;
+      }
+      Node prev = start;
+      for (int i = 1; i < size; i++) {
+        Node next = new Node(i);
+        graph.addNode(next);
+        graph.addEdge(new Edge(prev, next));
+
+        prev = next;
+      }
+      if (prev != start) {
+        graph.addEdge(new Edge(prev, start));
+      }
+      placeGenerated();
+    } finally {
+      graph.endUpdate();
+    }
+  }
+  private MenuItem createMeshMenu() {
+    Menu menu = new Menu();
+
+    for (int i = 1; i < 6; i++) {
+      final int count = (int)Math.pow(2, i);
+      menu.add(new MenuItem("" + count, new SelectionHandler<MenuItem>() {
+        @Override
+        public void onSelection(SelectionEvent<MenuItem> event) {
+          createMesh(count);
+        }
+      }));
+    }
+
+    MenuItem item = new MenuItem("Mesh");
+    item.setSubMenu(menu);
+    return item;
+  }
+  private void createMesh(int count) {
+    //create all nodes
+    List<Node> nodes = new ArrayList<Node>();
+    for (int i = 0; i < count; i++) {
+      nodes.add(new Node(i));
+    }
+
+    //create all edges
+    List<Edge> edges = new ArrayList<Edge>();
+    for (int i = 0; i < nodes.size(); i++) {
+      for (int j = i + 1; j < nodes.size(); j++) {
+        edges.add(new Edge(nodes.get(i), nodes.get(j)));
+      }
+    }
+
+    graph.beginUpdate();
+    clearGraph();
+    graph.addAll(nodes, edges);
+    placeGenerated();
+    graph.endUpdate();
+  }
+  private MenuItem createStarMenu() {
+    Menu menu = new Menu();
+
+    for (int i = 1; i < 10; i++) {
+      final int count = (int)Math.pow(2, i);
+      menu.add(new MenuItem("" + count, new SelectionHandler<MenuItem>() {
+        @Override
+        public void onSelection(SelectionEvent<MenuItem> event) {
+          createStar(count);
+        }
+      }));
+    }
+
+    MenuItem item = new MenuItem("Star");
+    item.setSubMenu(menu);
+    return item;
+  }
+  private void createStar(int orbit) {
+    graph.beginUpdate();
+    clearGraph();
+    //create all nodes except center
+    for (int i = 0; i < orbit; i++) {
+      graph.addNode(new Node(i));
+    }
+
+    //center
+    Node center = new Node(orbit);
+    for (Node node : graph.getNodes()) {
+      graph.addEdge(new Edge(center, node));
+    }
+    graph.addNode(center);
+    placeGenerated();
+    graph.endUpdate();
+  }
+
+  /**
+   * Empties the graph before generating a new one, restarting its random numbers from a fixed seed if
+   * asked to so that the same graph is laid out the same way each time.
+   */
+  private void clearGraph() {
+    graph.clear();
+    if (seeded) {
+      graph.getLayout().setRandom(new Random(0));
+    }
+  }
+
+  /**
+   * Starts a generated graph off close to where the layout will settle it, rather than on the spiral
+   * nodes are added along.
+   */
+  private void placeGenerated() {
+    initialPlacement.setForceModel(layoutEngine.getForceModel());
+    initialPlacement.place(graph.getLayout());
+  }
+}
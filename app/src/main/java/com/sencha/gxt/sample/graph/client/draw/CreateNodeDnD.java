@@ -44,8 +44,8 @@ public class CreateNodeDnD<N extends Node, E extends Edge> extends GraphDnD<N, E
   }
 
   @Override
-  protected boolean onStartDrag(String key, int x, int y) {
-    if (getGraph().getNodeAtCoords(x, y) != null) {
+  protected boolean onStartDrag(String key, double x, double y) {
+    if (getGraph().getNodeAt(x, y) != null) {
       return false;
     }
     newNodes.put(key, createNode(x, y));
@@ -74,8 +74,8 @@ public class CreateNodeDnD<N extends Node, E extends Edge> extends GraphDnD<N, E
   }
 
   @Override
-  protected void onDrag(String key, int x, int y) {
-    N endNode = getGraph().getNodeAtCoords(x, y);
+  protected void onDrag(String key, double x, double y) {
+    N endNode = getGraph().getNodeAt(x, y);
     final LineTo line;
     if (endNode != null) {
       // lock to node if it exists
@@ -94,15 +94,15 @@ public class CreateNodeDnD<N extends Node, E extends Edge> extends GraphDnD<N, E
   }
 
   @Override
-  protected void onDrop(String key, int x, int y) {
-    N endNode = getGraph().getNodeAtCoords(x, y);
+  protected void onDrop(String key, double x, double y) {
+    N endNode = getGraph().getNodeAt(x, y);
     if (endNode != null) {
       E newEdge = createEdge(newNodes.get(key), endNode);
 
       getGraph().addNode(newNodes.get(key));
       getGraph().addEdge(newEdge);
       MoveTo move = (MoveTo) newConnections.get(key).getCommand(0);
-      getGraph().setCoords(newNodes.get(key), (int) move.getX(), (int) move.getY());
+      getGraph().setCoords(newNodes.get(key), move.getX(), move.getY());
     }
 
     getGraph().remove(newNodesRendered.get(key));
@@ -126,7 +126,7 @@ public class CreateNodeDnD<N extends Node, E extends Edge> extends GraphDnD<N, E
     newNodes.clear();
   }
 
-  protected N createNode(int x, int y) {
+  protected N createNode(double x, double y) {
     return (N) new Node();
   }
   protected E createEdge(N startNode, N endNode) {
@@ -0,0 +1,128 @@
+package com.sencha.gxt.sample.graph.client.draw;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.sencha.gxt.sample.graph.client.draw.FrameOverrunEvent.FrameOverrunHandler;
+
+/**
+ * Fired by a {@link GraphComponent} when the work done in an animation frame, running the layout and
+ * rendering the result, took longer than its frame budget.
+ */
+public class FrameOverrunEvent extends GwtEvent<FrameOverrunHandler> {
+
+  /**
+   * Handler type.
+   */
+  private static Type<FrameOverrunHandler> TYPE;
+
+  /**
+   * Gets the type associated with this event.
+   *
+   * @return returns the handler type
+   */
+  public static Type<FrameOverrunHandler> getType() {
+    if (TYPE == null) {
+      TYPE = new Type<FrameOverrunHandler>();
+    }
+    return TYPE;
+  }
+
+  private final double frameTime;
+  private final double budget;
+  private final int ticks;
+
+  public FrameOverrunEvent(double frameTime, double budget, int ticks) {
+    this.frameTime = frameTime;
+    this.budget = budget;
+    this.ticks = ticks;
+  }
+
+  /**
+   * Returns how long the frame took, in milliseconds.
+   *
+   * @return the time spent laying out and rendering the frame
+   */
+  public double getFrameTime() {
+    return frameTime;
+  }
+
+  /**
+   * Returns the budget the frame was meant to fit in, in milliseconds.
+   *
+   * @return the frame budget
+   */
+  public double getBudget() {
+    return budget;
+  }
+
+  /**
+   * Returns the number of layout steps completed in the frame. Zero means that even part of a single
+   * step, or the rendering alone, did not fit in the budget.
+   *
+   * @return the steps completed
+   */
+  public int getTicks() {
+    return ticks;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  @Override
+  public Type<FrameOverrunHandler> getAssociatedType() {
+    return (Type) TYPE;
+  }
+
+  @Override
+  protected void dispatch(FrameOverrunHandler handler) {
+    handler.onFrameOverrun(this);
+  }
+
+  /**
+   * Handler for {@link FrameOverrunEvent} events.
+   */
+  public interface FrameOverrunHandler extends EventHandler {
+
+    /**
+     * Called after an animation frame has taken longer than its budget.
+     *
+     * @param event the {@link FrameOverrunEvent} that was fired
+     */
+    void onFrameOverrun(FrameOverrunEvent event);
+
+  }
+
+  /**
+   * A widget that implements this interface is a public source of {@link FrameOverrunEvent} events.
+   */
+  public interface HasFrameOverrunHandlers {
+
+    /**
+     * Adds a {@link FrameOverrunHandler} handler for {@link FrameOverrunEvent} events.
+     *
+     * @param handler the handler to add
+     * @return the registration for the event
+     */
+    HandlerRegistration addFrameOverrunHandler(FrameOverrunHandler handler);
+
+  }
+}
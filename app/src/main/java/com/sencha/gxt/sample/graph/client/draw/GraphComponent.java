@@ -0,0 +1,1678 @@
+package com.sencha.gxt.sample.graph.client.draw;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.gwt.animation.client.AnimationScheduler;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationCallback;
+import com.google.gwt.animation.client.AnimationScheduler.AnimationHandle;
+import com.google.gwt.event.dom.client.MouseWheelEvent;
+import com.google.gwt.event.dom.client.MouseWheelHandler;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.sencha.gxt.chart.client.draw.DrawComponent;
+import com.sencha.gxt.chart.client.draw.sprite.Sprite;
+import com.sencha.gxt.chart.client.draw.sprite.SpriteList;
+import com.sencha.gxt.core.client.util.PrecisePoint;
+import com.sencha.gxt.core.client.util.PreciseRectangle;
+import com.sencha.gxt.sample.graph.client.draw.FrameOverrunEvent.FrameOverrunHandler;
+import com.sencha.gxt.sample.graph.client.draw.FrameOverrunEvent.HasFrameOverrunHandlers;
+import com.sencha.gxt.sample.graph.client.draw.GraphMetrics.Phase;
+import com.sencha.gxt.sample.graph.client.layout.Clock;
+import com.sencha.gxt.sample.graph.client.layout.ComponentLayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.ForceDirectedLayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.GraphLayout;
+import com.sencha.gxt.sample.graph.client.layout.IncrementalLayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.LayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.UniformGrid;
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * Simple graph widget, implemented using the gxt draw library with a simple force-directed layout. Rendering
+ * of nodes and edges is delegated to {@link EdgeRenderer}s and {@link NodeRenderer}s, and the layout is animated
+ * to run as the browser is able to. The layout itself is run by a {@link LayoutEngine} over a
+ * {@link GraphLayout}, neither of which depend on GWT.
+ * <p>
+ * Each animation frame runs as many layout steps as fit in the frame budget, then renders the nodes that
+ * have moved to a different pixel and their edges, redrawing only if anything was rendered. Nodes and
+ * edges well outside the visible area are hidden rather than rendered, see
+ * {@link #setCullMargin(double)}. An {@link IncrementalLayoutEngine} too slow to finish a step within the
+ * budget has the step spread over several frames instead. Frames that still take longer than the budget fire a {@link FrameOverrunEvent}.
+ * <p>
+ * Nodes added to a graph that is already drawn are warm started: once their edges are added they are
+ * placed beside their neighbors, and for the next few steps only they and their neighbors move, see
+ * {@link #setWarmStartSteps(int)}. A {@link ComponentLayoutEngine} packs the components of the graph into
+ * the size of this widget.
+ * <p>
+ * The time each frame spends in each phase of the layout and rendering is recorded, along with the
+ * state of the layout and the sprites drawn, see {@link #getMetrics()}.
+ * <p>
+ * Large or tightly packed graphs are drawn with less detail, see {@link DetailLevel}. Renderers can
+ * check {@link RenderContext#getDetailLevel()} to draw cheaper variants of their sprites.
+ * <p>
+ * Nodes are positioned and drawn in world coordinates, which a camera maps onto the widget, see
+ * {@link #setCamera(double, double, double)}. The camera is a single transform of the whole draw surface,
+ * so panning and zooming don't touch any sprites until the view leaves the area already rendered.
+ *
+ * @param <N>
+ * @param <E>
+ */
+public class GraphComponent<N extends Node, E extends Edge> extends DrawComponent implements HasFrameOverrunHandlers {
+
+  /**
+   * Allows specifying a way to draw a Node object to be centered at the given coordinates. The coordinates
+   * and context objects are reused between calls, so should not be retained. Nodes are only rendered
+   * again once they have moved to a different whole pixel, so renderers should draw them at the rounded
+   * coordinates.
+   *
+   * @param <N>
+   */
+  public interface NodeRenderer<N extends Node> {
+    void render(N node, PrecisePoint coords, RenderContext context);
+  }
+
+  /**
+   * Allows specifying a way to draw an Edge object between the two given coordinates. The coordinates
+   * and context objects are reused between calls, so should not be retained. Edges are only rendered
+   * again once either end has moved to a different whole pixel.
+   *
+   * @param <E>
+   */
+  public interface EdgeRenderer<E extends Edge> {
+    void render(E edge, PrecisePoint start, PrecisePoint end, RenderContext context);
+  }
+
+  /**
+   * Allows drawing every edge at once, with a handful of sprites instead of some for each edge. Edges in
+   * view are passed as line segments, four values to each - the x and y of the edge's 'to' node followed
+   * by those of its 'from' node. The arrays and context are reused between calls, so should not be
+   * retained. Called again with every edge in view whenever any of them moves.
+   */
+  public interface BatchEdgeRenderer {
+    /**
+     * Draws the given edges, replacing whatever was drawn last time.
+     *
+     * @param segments the ends of each edge, {@code 4 * count} values
+     * @param edgeIndexes the index of each edge in {@link GraphLayout#getEdges()}, for renderers that
+     *        style edges differently
+     * @param count the number of edges to draw
+     * @param context the sprites drawn for all edges
+     */
+    void render(double[] segments, int[] edgeIndexes, int count, RenderContext context);
+  }
+
+  /**
+   * Simple API to let renderers draw and delete sprites, as well as get information about which
+   * sprites are drawn for a given object.
+   * <p>
+   * Released sprites, including those of removed nodes and edges, are hidden and pooled rather than
+   * removed from the surface. Renderers needing a new sprite should first try to
+   * {@link #reuseSprite(Class)} one, and only create a sprite if that returns null.
+   */
+  public interface RenderContext {
+    /**
+     * Draws the given sprite for the current node or edge, either newly created or from
+     * {@link #reuseSprite(Class)}.
+     */
+    void useSprite(Sprite s);
+    /**
+     * Stops drawing the given sprite, and pools it for reuse.
+     */
+    void releaseSprite(Sprite s);
+    List<Sprite> getSprites();
+
+    /**
+     * Takes a released sprite of exactly the given class from the pool. The sprite keeps whatever
+     * attributes it was last drawn with, so renderers should set everything they depend on, and then
+     * pass it to {@link #useSprite(Sprite)}.
+     *
+     * @param type the class of sprite wanted
+     * @return a pooled sprite, or null if there are none of that class
+     */
+    <S extends Sprite> S reuseSprite(Class<S> type);
+
+    /**
+     * Gets how much detail to draw with. Renderers that ignore this draw the same sprites at every
+     * level, and only the edge sampling of {@link DetailLevel#MINIMAL} applies.
+     *
+     * @return the level the graph is currently drawn at
+     */
+    DetailLevel getDetailLevel();
+  }
+
+  /**
+   * How much detail the graph is drawn with. The level is chosen each frame from the number of nodes in
+   * view and how far apart nodes are on screen, see {@link GraphComponent#setDetailNodeLimits(int, int)}
+   * and {@link GraphComponent#setDetailSpacingLimits(double, double)}. Once chosen, a level is kept
+   * until the graph is well past the limit that would change it, so that a graph close to a limit
+   * doesn't flicker between levels. Everything is rendered again when the level changes.
+   */
+  public enum DetailLevel {
+    /**
+     * Nodes and edges are drawn in full.
+     */
+    FULL,
+    /**
+     * Nodes should be drawn as simple markers, edges are still all drawn.
+     */
+    SIMPLE,
+    /**
+     * Nodes should be drawn as simple markers, and only a sample of the edges is drawn, see
+     * {@link GraphComponent#setMinimalEdgeLimit(int)}.
+     */
+    MINIMAL
+  }
+
+  /**
+   * Context for rendering the sprites of one node or edge at a time, pointed at each in turn.
+   */
+  private class SpriteListRenderContext implements RenderContext {
+    private SpriteList<Sprite> sprites;
+    <T> void bind(Map<T, SpriteList<Sprite>> spriteLists, T item) {
+      sprites = spriteLists.get(item);
+      if (sprites == null) {
+        sprites = new SpriteList<Sprite>();
+        spriteLists.put(item, sprites);
+      }
+    }
+    void bind(SpriteList<Sprite> sprites) {
+      this.sprites = sprites;
+    }
+    public void useSprite(Sprite s) {
+      if (s.getComponent() == GraphComponent.this) {
+        //from the pool, so already on the surface
+        s.setHidden(false);
+        metrics.spritesReused(1);
+      } else {
+        addSprite(s);
+        metrics.spritesCreated(1);
+      }
+      sprites.add(s);
+    }
+    public void releaseSprite(Sprite s) {
+      sprites.remove(s);
+      spritePool.release(s);
+      metrics.spritesReleased(1);
+    }
+    public <S extends Sprite> S reuseSprite(Class<S> type) {
+      return spritePool.take(type);
+    }
+    public List<Sprite> getSprites() {
+      return sprites;
+    }
+    public DetailLevel getDetailLevel() {
+      return detailLevel;
+    }
+    void setHidden(boolean hidden) {
+      for (int i = 0; i < sprites.size(); i++) {
+        sprites.get(i).setHidden(hidden);
+      }
+    }
+  }
+
+  private final Map<N, SpriteList<Sprite>> nodeSprites = new HashMap<N, SpriteList<Sprite>>();
+  private final Map<E, SpriteList<Sprite>> edgeSprites = new HashMap<E, SpriteList<Sprite>>();
+  private final SpriteList<Sprite> batchSprites = new SpriteList<Sprite>();
+  private final SpritePool spritePool = new SpritePool(10000);
+
+  /**
+   * Live view of one of the layout's node state arrays, so that callers asking for a node's position or
+   * velocity don't need a separate object to be kept up to date for each node.
+   */
+  private class NodePoint extends PrecisePoint {
+    private final N node;
+    private final boolean velocity;
+    public NodePoint(N node, boolean velocity) {
+      this.node = node;
+      this.velocity = velocity;
+    }
+    @Override
+    public double getX() {
+      int index = layout.indexOf(node);
+      return index == -1 ? 0 : (velocity ? layout.getVelocityX() : layout.getX())[index];
+    }
+    @Override
+    public double getY() {
+      int index = layout.indexOf(node);
+      return index == -1 ? 0 : (velocity ? layout.getVelocityY() : layout.getY())[index];
+    }
+    @Override
+    public void setX(double value) {
+      int index = layout.indexOf(node);
+      if (index != -1) {
+        (velocity ? layout.getVelocityX() : layout.getX())[index] = value;
+      }
+    }
+    @Override
+    public void setY(double value) {
+      int index = layout.indexOf(node);
+      if (index != -1) {
+        (velocity ? layout.getVelocityY() : layout.getY())[index] = value;
+      }
+    }
+    @Override
+    public String toString() {
+      return "(" + getX() + ", " + getY() + ")";
+    }
+  }
+
+  private final GraphLayout<N, E> layout = new GraphLayout<N, E>();
+  private LayoutEngine layoutEngine = new ForceDirectedLayoutEngine();
+
+  //reused when passing positions to renderers
+  private final PrecisePoint renderStart = new PrecisePoint();
+  private final PrecisePoint renderEnd = new PrecisePoint();
+  private final SpriteListRenderContext renderContext = new SpriteListRenderContext();
+
+  //the whole pixel each node was last seen at, whether it moved off it this frame, and whether each node
+  //and edge was in view, by index - indexes change when the graph does, so everything is rendered again
+  //when the mod count moves on
+  private int[] renderedX = new int[0];
+  private int[] renderedY = new int[0];
+  private boolean[] moved = new boolean[0];
+  private boolean[] nodeVisible = new boolean[0];
+  private boolean[] edgeVisible = new boolean[0];
+  private int renderedModCount = -1;
+  private boolean renderChanged;
+  //set by the edge pass when edge sprites changed in a way that needs a redraw
+  private boolean edgeSpritesChanged;
+
+  //the area nodes and edges are rendered within, the visible area grown by the cull margin
+  private double cullMargin = 100;
+  private double viewLeft;
+  private double viewTop;
+  private double viewRight;
+  private double viewBottom;
+
+  //the world coordinates at the top left of the widget, and the number of pixels to each world unit
+  private double cameraX;
+  private double cameraY;
+  private double cameraScale = 1;
+  private double minScale = 0.02;
+  private double maxScale = 10;
+  //false until the camera is applied to a surface element of the current size
+  private boolean cameraApplied;
+  //zooms around the mouse while registered, see setWheelZoomEnabled
+  private HandlerRegistration wheelZoomRegistration;
+  private final MouseWheelHandler wheelZoomHandler = new MouseWheelHandler() {
+    @Override
+    public void onMouseWheel(MouseWheelEvent event) {
+      event.preventDefault();
+      //a step at a time, whatever units the browser scrolls in
+      double factor = event.getDeltaY() < 0 ? 1.25 : 1 / 1.25;
+      zoom(factor, event.getRelativeX(getElement()), event.getRelativeY(getElement()));
+    }
+  };
+
+  //the level of detail drawn, and the limits it is chosen by - a fixed level of null chooses it each frame
+  private static final double DETAIL_HYSTERESIS = 0.2;
+  private DetailLevel detailLevel = DetailLevel.FULL;
+  private DetailLevel fixedDetailLevel;
+  private int fullDetailNodes = 1000;
+  private int simpleDetailNodes = 5000;
+  private double fullDetailSpacing = 24;
+  private double simpleDetailSpacing = 8;
+  private int minimalEdgeLimit = 2000;
+  //at the minimal level only every edgeSampleStride-th edge is drawn
+  private int edgeSampleStride = 1;
+  private int nodesInView;
+
+  //the position each node was last rendered at, for hit testing, and how far from that position their
+  //sprites reach - negative until measured, which is put off until the first hit test after a change
+  private final UniformGrid nodeGrid = new UniformGrid();
+  private double nodeExtent = -1;
+
+  private final Clock clock = new Clock() {
+    @Override
+    public double now() {
+      return currentTime();
+    }
+  };
+  private final GraphMetrics metrics = new GraphMetrics(clock);
+  private boolean metricsEnabled = true;
+  private double frameBudget = 12;
+  private double lastRenderTime;
+  private double lastFrameTime;
+  private int lastFrameTicks;
+  private int frameOverrunCount;
+
+  private AnimationHandle animationHandle;
+  private AnimationCallback animationCallback = new AnimationCallback() {
+    public void execute(double timestamp) {
+      // Run the layout and redraw
+      boolean settled = runFrame();
+
+      if (settled) {
+        // Nothing left to animate, wait for the graph to change
+        sleeping = true;
+        animationHandle = null;
+      } else {
+        // Automatically re-schedule
+        animationHandle = AnimationScheduler.get().requestAnimationFrame(this);
+      }
+    }
+  };
+
+  //renders again without running the layout, when the camera leaves the area rendered last time
+  private AnimationHandle viewHandle;
+  private AnimationCallback viewCallback = new AnimationCallback() {
+    public void execute(double timestamp) {
+      viewHandle = null;
+      double start = clock.now();
+      render();
+      if (renderChanged) {
+        redrawSurfaceForced();
+      }
+      if (metricsEnabled) {
+        metrics.endFrame(clock.now() - start, 0, layout);
+      }
+    }
+  };
+
+  private EdgeRenderer<E> edgeRenderer;
+  private BatchEdgeRenderer batchEdgeRenderer;
+  private NodeRenderer<N> nodeRenderer;
+
+  //edges in view handed to the batch renderer, reused from frame to frame
+  private double[] batchSegments = new double[0];
+  private int[] batchIndexes = new int[0];
+
+
+  private PrecisePoint lastPoint = new PrecisePoint(2 * layout.getNodeDist(), 2 * layout.getNodeDist());
+
+  private int warmStartSteps = 50;
+
+  private boolean animationEnabled = false;
+  private boolean sleeping = false;
+  private double sleepEnergy = 0.5;
+  private double sleepDisplacement = 0.05;
+
+  //while updateDepth is positive changes are batched, waking the animation and DOM reads held until the end
+  private int updateDepth;
+  private int batchOffsetWidth;
+  private int batchOffsetHeight;
+
+  public GraphComponent() {
+    layout.setProfiler(metrics.getProfiler());
+  }
+
+  /**
+   * Starts a batch of changes to the graph. Until the matching {@link #endUpdate()}, adding or removing
+   * nodes and edges only updates the layout's indexes - the size of the widget is read once for the
+   * whole batch, and the animation is paused until it ends, so that new nodes aren't placed or drawn
+   * while only some of their edges have been added. Calls may be nested, the batch ends with the
+   * outermost.
+   */
+  public void beginUpdate() {
+    if (updateDepth++ == 0) {
+      batchOffsetWidth = getOffsetWidth();
+      batchOffsetHeight = getOffsetHeight();
+    }
+  }
+
+  /**
+   * Ends a batch of changes started with {@link #beginUpdate()}, and resumes the animation.
+   */
+  public void endUpdate() {
+    assert updateDepth > 0 : "endUpdate() without beginUpdate()";
+    if (--updateDepth == 0) {
+      wake();
+    }
+  }
+
+  /**
+   * Adds the given nodes and edges in a single batch, see {@link #beginUpdate()}.
+   *
+   * @param nodes the nodes to draw
+   * @param edges the edges to draw, between the given nodes or those already added
+   */
+  public void addAll(Collection<? extends N> nodes, Collection<? extends E> edges) {
+    beginUpdate();
+    layout.ensureCapacity(layout.getNodeCount() + nodes.size(), layout.getEdgeCount() + edges.size());
+    for (N node : nodes) {
+      addNode(node);
+    }
+    for (E edge : edges) {
+      addEdge(edge);
+    }
+    endUpdate();
+  }
+
+  /**
+   * Wakes the animation after a change to the graph, unless a batch is open and will do so when it ends.
+   */
+  private void changed() {
+    if (updateDepth == 0) {
+      wake();
+    }
+  }
+
+  /**
+   * Declares that a node should be rendered the next time the layout update is run. 
+   * 
+   * Each edge in that node must also be added, see {@link #addEdge(Edge)}. Before the next update the
+   * node is moved beside whichever of its neighbors are already drawn, if any.
+   *
+   * @param n the node to draw
+   */
+  public void addNode(N n) {
+    layout.addUnplacedNode(n, lastPoint.getX(), lastPoint.getY());
+    changed();
+
+    double nodeDist = layout.getNodeDist();
+    lastPoint = new PrecisePoint(lastPoint.getX(), lastPoint.getY());
+    int offsetWidth = updateDepth > 0 ? batchOffsetWidth : getOffsetWidth();
+    int offsetHeight = updateDepth > 0 ? batchOffsetHeight : getOffsetHeight();
+    if (((offsetWidth != 0) && (lastPoint.getX() > offsetWidth))
+            || ((offsetHeight != 0) && (lastPoint.getY() > offsetHeight))) {
+      lastPoint.setX(2 * nodeDist + nodeDist * layout.getRandom().nextDouble());
+      lastPoint.setY(2 * nodeDist + nodeDist * layout.getRandom().nextDouble());
+    } else if (lastPoint.getY() <= 2 * nodeDist) {
+      lastPoint.setY(lastPoint.getX() + 2 * nodeDist);
+      lastPoint.setX(2 * nodeDist + nodeDist * layout.getRandom().nextDouble());
+    } else if (lastPoint.getY() <= lastPoint.getX()) {
+      lastPoint.setY(lastPoint.getY() - 2 * nodeDist);
+    } else {
+      lastPoint.setX(lastPoint.getX() + 2 * nodeDist);
+    }
+  }
+
+  /**
+   * Declares that a node should be rendered the next time the layout update is run.
+   * 
+   * Each node attached to the edge must also be added, see {@link #addNode(Node)}.
+   * 
+   * @param edge the edge to draw
+   */
+  public void addEdge(E edge) {
+    layout.addEdge(edge);
+    changed();
+  }
+
+  /**
+   * Removes a node and every edge attached to it, along with their sprites.
+   *
+   * @param node the node to remove
+   */
+  public void removeNode(N node) {
+    if (!layout.contains(node)) {
+      return;
+    }
+    List<E> removedEdges = layout.removeNode(node);
+    changed();
+    release(nodeSprites.remove(node));
+    for (E edge : removedEdges) {
+      release(edgeSprites.remove(edge));
+    }
+  }
+
+  /**
+   * Removes a single edge and its sprites, leaving the nodes it joined in place.
+   *
+   * @param edge the edge to remove
+   */
+  public void removeEdge(E edge) {
+    if (!layout.removeEdge(edge)) {
+      return;
+    }
+    changed();
+    release(edgeSprites.remove(edge));
+  }
+
+  public void clear() {
+    layout.clear();
+    lastPoint = new PrecisePoint(2 * layout.getNodeDist(), 2 * layout.getNodeDist());
+    changed();
+    //pooled for the next graph, rather than dropped while still in the DOM
+    for (SpriteList<Sprite> sprites : nodeSprites.values()) {
+      release(sprites);
+    }
+    for (SpriteList<Sprite> sprites : edgeSprites.values()) {
+      release(sprites);
+    }
+    release(batchSprites);
+    nodeSprites.clear();
+    edgeSprites.clear();
+  }
+
+  /**
+   * Returns each of the given sprites to the pool, and empties the list.
+   */
+  private void release(SpriteList<Sprite> sprites) {
+    if (sprites == null) {
+      return;
+    }
+    metrics.spritesReleased(sprites.size());
+    for (int i = 0; i < sprites.size(); i++) {
+      spritePool.release(sprites.get(i));
+    }
+    //removing from the end leaves the sprites on the surface, unlike SpriteList.clear()
+    while (!sprites.isEmpty()) {
+      sprites.remove(sprites.size() - 1);
+    }
+  }
+
+  /**
+   * Sets the most released sprites to keep hidden on the surface for renderers to reuse. Sprites
+   * released past that are removed from the surface. Defaults to 10000.
+   *
+   * @param maxPooledSprites the most sprites to pool
+   */
+  public void setMaxPooledSprites(int maxPooledSprites) {
+    assert maxPooledSprites >= 0;
+    spritePool.setMaxSize(maxPooledSprites);
+  }
+
+  public int getMaxPooledSprites() {
+    return spritePool.getMaxSize();
+  }
+
+  /**
+   * Gets the number of released sprites currently pooled for reuse.
+   *
+   * @return the number of hidden sprites waiting to be reused
+   */
+  public int getPooledSpriteCount() {
+    return spritePool.size();
+  }
+
+  /**
+   * Enables or disables animations. Enabled by default - if disabled, the layout will not be run automatically, 
+   * {@link #update()} must be invoked to perform the layout operation.
+   * @param animationEnabled
+   */
+  public void setAnimationEnabled(boolean animationEnabled) {
+    if (animationEnabled != this.animationEnabled) {
+      this.animationEnabled = animationEnabled;
+      sleeping = false;
+      if (isAttached()) {
+        if (animationEnabled) {
+          animationHandle = AnimationScheduler.get().requestAnimationFrame(animationCallback);
+        } else if (animationHandle != null) {//i.e. not already running, this check shouldn't be needed
+          animationHandle.cancel();
+          animationHandle = null;
+        }
+      }
+    }
+  }
+
+  public boolean isAnimationEnabled() {
+    return animationEnabled;
+  }
+
+  /**
+   * Sets how still the layout must be before animation is suspended. Once a layout update leaves the
+   * total kinetic energy of the nodes and the furthest any node moved both below these thresholds, no
+   * further frames are requested until the graph is changed or {@link #wake()} is called. The layout is
+   * never considered settled while new nodes are still being warm started, see
+   * {@link #setWarmStartSteps(int)}. Use zero for either value to keep animating forever.
+   *
+   * @param kineticEnergy the total kinetic energy below which the layout is considered settled
+   * @param displacement the distance in pixels per update below which the layout is considered settled
+   */
+  public void setSleepThreshold(double kineticEnergy, double displacement) {
+    this.sleepEnergy = kineticEnergy;
+    this.sleepDisplacement = displacement;
+    wake();
+  }
+
+  public double getSleepEnergy() {
+    return sleepEnergy;
+  }
+
+  public double getSleepDisplacement() {
+    return sleepDisplacement;
+  }
+
+  /**
+   * Returns true if animation is enabled, but suspended because the layout has settled.
+   *
+   * @return
+   */
+  public boolean isSleeping() {
+    return sleeping;
+  }
+
+  /**
+   * Resumes animation if it was suspended because the layout had settled. Called automatically when
+   * the graph is changed through this component, but should be called after changing anything else
+   * that affects the layout, such as settings on the {@link LayoutEngine}.
+   */
+  public void wake() {
+    if (sleeping) {
+      sleeping = false;
+      if (animationEnabled && isAttached()) {
+        animationHandle = AnimationScheduler.get().requestAnimationFrame(animationCallback);
+      }
+    }
+  }
+
+  private boolean isSettled() {
+    //the few nodes free to move during a warm start settle quickly, but the focus only counts down while
+    //steps are run, and the rest of the graph should relax once it ends
+    if (layout.getFocusSteps() > 0) {
+      return false;
+    }
+    return layout.getKineticEnergy() < sleepEnergy && layout.getMaxDisplacement() < sleepDisplacement;
+  }
+
+  /**
+   * Sets how many layout steps nodes added to an existing graph get to settle in, during which only they
+   * and their neighbors move. This keeps the rest of the graph still, and the work done for each step in
+   * proportion to the change. Use zero to let the whole graph respond to every change immediately.
+   * Defaults to 50.
+   *
+   * @param warmStartSteps the number of steps to hold the rest of the graph still for
+   */
+  public void setWarmStartSteps(int warmStartSteps) {
+    assert warmStartSteps >= 0;
+    this.warmStartSteps = warmStartSteps;
+  }
+
+  public int getWarmStartSteps() {
+    return warmStartSteps;
+  }
+
+  /**
+   * Sets how long each animation frame may spend running the layout and rendering, in milliseconds.
+   * Layout steps are run until the budget is used up, less the time the last render took. Defaults to
+   * 12ms, leaving the browser some of a 60Hz frame for everything else.
+   *
+   * @param frameBudget the time each frame may take
+   */
+  public void setFrameBudget(double frameBudget) {
+    assert frameBudget > 0;
+    this.frameBudget = frameBudget;
+  }
+
+  public double getFrameBudget() {
+    return frameBudget;
+  }
+
+  /**
+   * Returns how long the last animation frame spent running the layout and rendering, in milliseconds.
+   *
+   * @return
+   */
+  public double getLastFrameTime() {
+    return lastFrameTime;
+  }
+
+  /**
+   * Returns the number of layout steps completed in the last animation frame.
+   *
+   * @return
+   */
+  public int getLastFrameTicks() {
+    return lastFrameTicks;
+  }
+
+  /**
+   * Returns the number of animation frames so far that took longer than the frame budget.
+   *
+   * @return
+   */
+  public int getFrameOverrunCount() {
+    return frameOverrunCount;
+  }
+
+  /**
+   * Gets the measurements of the work done in each frame, updated as frames are drawn while metrics are
+   * enabled.
+   *
+   * @return the metrics for this component
+   */
+  public GraphMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Enables or disables recording {@link #getMetrics() metrics}. Enabled by default, as recording costs
+   * only a few reads of the clock per frame and per layout step. Enabling them again starts the
+   * measurements over.
+   *
+   * @param metricsEnabled true to record metrics for each frame
+   */
+  public void setMetricsEnabled(boolean metricsEnabled) {
+    if (metricsEnabled != this.metricsEnabled) {
+      this.metricsEnabled = metricsEnabled;
+      metrics.reset();
+      layout.setProfiler(metricsEnabled ? metrics.getProfiler() : null);
+    }
+  }
+
+  public boolean isMetricsEnabled() {
+    return metricsEnabled;
+  }
+
+  @Override
+  public HandlerRegistration addFrameOverrunHandler(FrameOverrunHandler handler) {
+    return addHandler(handler, FrameOverrunEvent.getType());
+  }
+
+  /**
+   * Runs layout steps until the frame budget is spent or the layout settles, then renders.
+   *
+   * @return true if the layout has settled, or a batch of changes is open
+   */
+  private boolean runFrame() {
+    if (updateDepth > 0) {
+      //sleep until the batch ends
+      return true;
+    }
+    double start = clock.now();
+    //leave room to render, assuming it will take about as long as it did last time
+    double deadline = start + frameBudget - lastRenderTime;
+    prepareLayout();
+    if (metricsEnabled) {
+      metrics.add(Phase.PREPARE, clock.now() - start);
+    }
+    int ticks = 0;
+    boolean settled = false;
+    do {
+      if (tick(deadline)) {
+        ticks++;
+        settled = isSettled();
+      }
+    } while (!settled && clock.now() < deadline);
+
+    double renderStart = clock.now();
+    render();
+    double redrawStart = clock.now();
+    if (renderChanged) {
+      redrawSurfaceForced();
+    }
+    if (!cameraApplied) {
+      //the surface element may only just have been created
+      applyCamera();
+    }
+    double end = clock.now();
+
+    lastRenderTime = end - renderStart;
+    lastFrameTime = end - start;
+    lastFrameTicks = ticks;
+    if (metricsEnabled) {
+      metrics.add(Phase.REDRAW, end - redrawStart);
+      metrics.endFrame(lastFrameTime, ticks, layout);
+    }
+    if (lastFrameTime > frameBudget) {
+      frameOverrunCount++;
+      fireEvent(new FrameOverrunEvent(lastFrameTime, frameBudget, ticks));
+    }
+    return settled;
+  }
+
+  /**
+   * Places any new nodes, and tells the engine how much room it has to pack components into.
+   */
+  private void prepareLayout() {
+    layout.placeNewNodes(warmStartSteps);
+    if (layoutEngine instanceof ComponentLayoutEngine) {
+      ((ComponentLayoutEngine) layoutEngine).setBounds(getOffsetWidth(), getOffsetHeight());
+    }
+  }
+
+  /**
+   * Runs a layout step, or as much of one as fits before the deadline if the engine can split steps.
+   *
+   * @return true if a step was completed
+   */
+  private boolean tick(double deadline) {
+    if (layoutEngine instanceof IncrementalLayoutEngine) {
+      return ((IncrementalLayoutEngine) layoutEngine).stepUntil(layout, clock, deadline);
+    }
+    layoutEngine.step(layout);
+    return true;
+  }
+
+  /**
+   * Sets the renderer to use to draw edges.
+   * @see RenderContext
+   * @see EdgeRenderer
+   * @param edgeRenderer the instance to use when rendering any edge
+   */
+  public void setEdgeRenderer(EdgeRenderer<E> edgeRenderer) {
+    this.edgeRenderer = edgeRenderer;
+    invalidateRendering();
+  }
+
+  /**
+   * Sets a renderer to draw every edge at once, in place of the {@link EdgeRenderer} which draws them
+   * one at a time. Drawing them together lets the renderer use a few sprites for the whole graph, where
+   * a sprite for each edge would mean updating thousands of elements each frame for a large graph. The
+   * per-edge renderer remains for edges that each need their own styling or events.
+   *
+   * @param batchEdgeRenderer the renderer for all edges, or null to go back to the per-edge renderer
+   */
+  public void setBatchEdgeRenderer(BatchEdgeRenderer batchEdgeRenderer) {
+    if (batchEdgeRenderer == this.batchEdgeRenderer) {
+      return;
+    }
+    //the sprites drawn by whichever renderer was in use are no longer wanted
+    if (this.batchEdgeRenderer == null) {
+      for (SpriteList<Sprite> sprites : edgeSprites.values()) {
+        release(sprites);
+      }
+      edgeSprites.clear();
+    } else {
+      release(batchSprites);
+    }
+    this.batchEdgeRenderer = batchEdgeRenderer;
+    invalidateRendering();
+  }
+
+  public BatchEdgeRenderer getBatchEdgeRenderer() {
+    return batchEdgeRenderer;
+  }
+
+  /**
+   * Sets the renderer to use to draw nodes.
+   * @see RenderContext
+   * @see NodeRenderer
+   * @param nodeRenderer the instance to use when rendering any node
+   */
+  public void setNodeRenderer(NodeRenderer<N> nodeRenderer) {
+    this.nodeRenderer = nodeRenderer;
+    invalidateRendering();
+  }
+
+  /**
+   * Sets how far outside the visible area of this widget nodes and edges are still rendered, in pixels.
+   * Anything further out has its sprites hidden and its renderer isn't called until it comes back into
+   * range, so the work done each frame follows what is on screen rather than the size of the graph.
+   * The margin should be at least the distance renderers draw from a node's position, so that nothing
+   * is hidden while part of it would still show. Defaults to 100, use
+   * {@link Double#POSITIVE_INFINITY} to render everything.
+   *
+   * @param cullMargin the distance past each edge of the widget to keep rendering
+   */
+  public void setCullMargin(double cullMargin) {
+    assert cullMargin >= 0;
+    this.cullMargin = cullMargin;
+    wake();
+  }
+
+  public double getCullMargin() {
+    return cullMargin;
+  }
+
+  /**
+   * Sets the most nodes that may be in view for each level of detail. Past the first limit nodes are
+   * drawn as {@link DetailLevel#SIMPLE} markers, past the second edges are also sampled. Defaults to
+   * 1000 and 5000.
+   *
+   * @param fullNodes the most nodes in view to draw in full
+   * @param simpleNodes the most nodes in view to draw every edge of
+   */
+  public void setDetailNodeLimits(int fullNodes, int simpleNodes) {
+    assert fullNodes <= simpleNodes;
+    this.fullDetailNodes = fullNodes;
+    this.simpleDetailNodes = simpleNodes;
+    wake();
+  }
+
+  /**
+   * Sets the least distance between neighboring nodes on screen, the layout's node distance, for each
+   * level of detail. Below the first nodes are drawn as {@link DetailLevel#SIMPLE} markers, below the
+   * second edges are also sampled. Defaults to 24 and 8 pixels.
+   *
+   * @param fullSpacing the least spacing to draw in full
+   * @param simpleSpacing the least spacing to draw every edge at
+   */
+  public void setDetailSpacingLimits(double fullSpacing, double simpleSpacing) {
+    assert fullSpacing >= simpleSpacing;
+    this.fullDetailSpacing = fullSpacing;
+    this.simpleDetailSpacing = simpleSpacing;
+    wake();
+  }
+
+  /**
+   * Sets how many edges to draw at most at the {@link DetailLevel#MINIMAL} level. Edges are sampled
+   * evenly from the whole graph, so fewer may be drawn when only part of it is in view. Defaults to
+   * 2000.
+   *
+   * @param minimalEdgeLimit the number of edges to sample
+   */
+  public void setMinimalEdgeLimit(int minimalEdgeLimit) {
+    assert minimalEdgeLimit > 0;
+    this.minimalEdgeLimit = minimalEdgeLimit;
+    invalidateRendering();
+  }
+
+  public int getMinimalEdgeLimit() {
+    return minimalEdgeLimit;
+  }
+
+  /**
+   * Always draws the graph at the given level of detail, instead of choosing one from the size of the
+   * graph.
+   *
+   * @param detailLevel the level to draw at, or null to choose it each frame
+   */
+  public void setFixedDetailLevel(DetailLevel detailLevel) {
+    this.fixedDetailLevel = detailLevel;
+    invalidateRendering();
+  }
+
+  public DetailLevel getFixedDetailLevel() {
+    return fixedDetailLevel;
+  }
+
+  /**
+   * Gets the level of detail the graph was last drawn at.
+   *
+   * @return the current level of detail
+   */
+  public DetailLevel getDetailLevel() {
+    return detailLevel;
+  }
+
+  /**
+   * Renders every node and edge again on the next frame, including those that haven't moved. Changes
+   * to the graph already do this, but should be called after changing anything else the renderers
+   * depend on.
+   */
+  public void invalidateRendering() {
+    renderedModCount = -1;
+    wake();
+  }
+
+  /**
+   * Moves the camera so that the given world coordinates are at the top left corner of this widget, and
+   * each world unit is drawn as the given number of pixels. Only the transform of the draw surface is
+   * updated, nodes and edges are rendered again only once the visible area leaves the area grown by the
+   * {@link #setCullMargin(double) cull margin} that was rendered last, or the level of detail changes.
+   *
+   * @param x the world x coordinate at the left edge of the widget
+   * @param y the world y coordinate at the top edge of the widget
+   * @param scale the number of pixels to each world unit, limited to the range set by
+   *        {@link #setScaleLimits(double, double)}
+   */
+  public void setCamera(double x, double y, double scale) {
+    cameraX = x;
+    cameraY = y;
+    cameraScale = Math.max(minScale, Math.min(maxScale, scale));
+    applyCamera();
+
+    int width = getOffsetWidth(), height = getOffsetHeight();
+    if (toWorldX(0) < viewLeft || toWorldY(0) < viewTop || toWorldX(width) > viewRight
+        || toWorldY(height) > viewBottom
+        || chooseDetailLevel(nodesInView, layout.getNodeDist() * cameraScale) != detailLevel) {
+      refreshView();
+    }
+  }
+
+  /**
+   * Moves the camera by the given number of pixels, so that what was drawn at one point of the widget is
+   * drawn that far away from it.
+   *
+   * @param dx the distance to move the graph right
+   * @param dy the distance to move the graph down
+   */
+  public void pan(double dx, double dy) {
+    setCamera(cameraX - dx / cameraScale, cameraY - dy / cameraScale, cameraScale);
+  }
+
+  /**
+   * Scales the view by the given factor, keeping whatever is drawn at the given point of the widget in
+   * place.
+   *
+   * @param factor the amount to scale by, greater than one to zoom in
+   * @param x the x coordinate in the widget to zoom around
+   * @param y the y coordinate in the widget to zoom around
+   */
+  public void zoom(double factor, double x, double y) {
+    double worldX = toWorldX(x), worldY = toWorldY(y);
+    double scale = Math.max(minScale, Math.min(maxScale, cameraScale * factor));
+    setCamera(worldX - x / scale, worldY - y / scale, scale);
+  }
+
+  /**
+   * Sets how far the camera can zoom out and in. Defaults to 0.02 and 10.
+   *
+   * @param minScale the fewest pixels to each world unit
+   * @param maxScale the most pixels to each world unit
+   */
+  public void setScaleLimits(double minScale, double maxScale) {
+    assert 0 < minScale && minScale <= maxScale;
+    this.minScale = minScale;
+    this.maxScale = maxScale;
+    setCamera(cameraX, cameraY, cameraScale);
+  }
+
+  public double getCameraX() {
+    return cameraX;
+  }
+
+  public double getCameraY() {
+    return cameraY;
+  }
+
+  public double getCameraScale() {
+    return cameraScale;
+  }
+
+  /**
+   * Enables or disables zooming around the mouse with its wheel. While enabled, wheel events over this
+   * widget zoom instead of scrolling the page. Disabled by default.
+   *
+   * @param wheelZoomEnabled true to zoom with the mouse wheel
+   */
+  public void setWheelZoomEnabled(boolean wheelZoomEnabled) {
+    if (wheelZoomEnabled && wheelZoomRegistration == null) {
+      wheelZoomRegistration = addDomHandler(wheelZoomHandler, MouseWheelEvent.getType());
+    } else if (!wheelZoomEnabled && wheelZoomRegistration != null) {
+      wheelZoomRegistration.removeHandler();
+      wheelZoomRegistration = null;
+    }
+  }
+
+  public boolean isWheelZoomEnabled() {
+    return wheelZoomRegistration != null;
+  }
+
+  /**
+   * Converts an x coordinate in this widget to world coordinates, those of nodes in the layout.
+   *
+   * @param x the distance from the left edge of the widget
+   * @return the world x coordinate drawn there
+   */
+  public double toWorldX(double x) {
+    return cameraX + x / cameraScale;
+  }
+
+  /**
+   * Converts a y coordinate in this widget to world coordinates, those of nodes in the layout.
+   *
+   * @param y the distance from the top edge of the widget
+   * @return the world y coordinate drawn there
+   */
+  public double toWorldY(double y) {
+    return cameraY + y / cameraScale;
+  }
+
+  /**
+   * Converts a world x coordinate to where it is drawn in this widget.
+   *
+   * @param x the world x coordinate
+   * @return the distance from the left edge of the widget
+   */
+  public double toScreenX(double x) {
+    return (x - cameraX) * cameraScale;
+  }
+
+  /**
+   * Converts a world y coordinate to where it is drawn in this widget.
+   *
+   * @param y the world y coordinate
+   * @return the distance from the top edge of the widget
+   */
+  public double toScreenY(double y) {
+    return (y - cameraY) * cameraScale;
+  }
+
+  /**
+   * Sets the engine used to move nodes on each update. Defaults to a {@link ForceDirectedLayoutEngine}.
+   *
+   * @param layoutEngine the engine to run on the next update
+   */
+  public void setLayoutEngine(LayoutEngine layoutEngine) {
+    assert layoutEngine != null;
+    this.layoutEngine = layoutEngine;
+    wake();
+  }
+
+  public LayoutEngine getLayoutEngine() {
+    return layoutEngine;
+  }
+
+  /**
+   * Gets the state of the graph as seen by the layout engine, the nodes and edges along with each node's
+   * position and velocity.
+   *
+   * @return the layout state backing this component
+   */
+  public GraphLayout<N, E> getLayout() {
+    return layout;
+  }
+
+  /**
+   * Sets the length of the 'spring' to use on edges.
+   *
+   * @param nodeDist the length of the 'spring' to use on edges
+   */
+  public void setNodeDist(double nodeDist) {
+    layout.setNodeDist(nodeDist);
+    wake();
+  }
+
+  /**
+   * Allows external code to specify the position of a given node. When executed, will set the velocity
+   * of that node to zero.
+   *
+   * @param node the node to move
+   * @param x the new x position in world coordinates
+   * @param y the new y position in world coordinates
+   */
+  public void setCoords(N node, double x, double y) {
+    layout.setPosition(node, x, y);
+    wake();
+  }
+
+  /**
+   * Gets a node (if any) present at the given coordinates in this widget, such as those of a mouse event.
+   * 
+   * @param x
+   * @param y
+   * @return
+   * @see #getNodeAt(double, double)
+   */
+  public N getNodeAtCoords(int x, int y) {
+    return getNodeAt(toWorldX(x), toWorldY(y));
+  }
+
+  /**
+   * Gets a node (if any) present at the given world coordinates by checking the bounding box of each
+   * sprite associated with that node. Only nodes close enough for their sprites to reach the point are
+   * checked, found with a grid of the positions nodes were last rendered at, and of those the node
+   * drawn nearest the point is returned. How far sprites reach is measured from every node's sprites
+   * on the first call after the graph, renderers or level of detail change; later calls only look at
+   * the few nodes nearby.
+   *
+   * @param x
+   * @param y
+   * @return
+   */
+  public N getNodeAt(double x, double y) {
+    List<N> nodes = layout.getNodes();
+    if (layout.getModCount() != renderedModCount) {
+      //the grid is indexed as of the last render, only the sprites themselves can be trusted
+      for (Map.Entry<N, SpriteList<Sprite>> entry : nodeSprites.entrySet()) {
+        if (contains(entry.getValue(), x, y)) {
+          return entry.getKey();
+        }
+      }
+      return null;
+    }
+    if (nodeExtent < 0) {
+      measureNodeExtent();
+    }
+    N nearest = null;
+    double best = Double.POSITIVE_INFINITY;
+    int found = nodeGrid.findWithin(x, y, nodeExtent);
+    for (int k = 0; k < found; k++) {
+      int i = nodeGrid.getFound(k);
+      double dx = x - renderedX[i], dy = y - renderedY[i];
+      if (dx * dx + dy * dy < best && contains(nodeSprites.get(nodes.get(i)), x, y)) {
+        best = dx * dx + dy * dy;
+        nearest = nodes.get(i);
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * Gets the node nearest to the given world coordinates, as of the last render, no further away than
+   * the given radius. Unlike {@link #getNodeAt(double, double)} this only looks at the positions of
+   * nodes, not at what is drawn for them, so it can be used to snap to nodes whatever they look like.
+   *
+   * @param x the world x coordinate to search around
+   * @param y the world y coordinate to search around
+   * @param radius the furthest the node may be from that point
+   * @return the nearest node, or null if there are none within the radius
+   */
+  public N getNearestNode(double x, double y, double radius) {
+    if (layout.getModCount() != renderedModCount) {
+      //not rendered since the graph changed, so fall back to the layout's positions
+      int nearest = -1;
+      double best = radius * radius;
+      double[] nodeX = layout.getX(), nodeY = layout.getY();
+      for (int i = 0; i < layout.getNodeCount(); i++) {
+        double dx = x - nodeX[i], dy = y - nodeY[i];
+        if (dx * dx + dy * dy <= best) {
+          best = dx * dx + dy * dy;
+          nearest = i;
+        }
+      }
+      return nearest == -1 ? null : layout.getNodes().get(nearest);
+    }
+    int nearest = nodeGrid.findNearest(x, y, radius);
+    return nearest == -1 ? null : layout.getNodes().get(nearest);
+  }
+
+  /**
+   * Finds the furthest any node's sprites reach from the position it was rendered at.
+   */
+  private void measureNodeExtent() {
+    List<N> nodes = layout.getNodes();
+    nodeExtent = 0;
+    for (int i = 0; i < nodes.size(); i++) {
+      SpriteList<Sprite> sprites = nodeSprites.get(nodes.get(i));
+      if (sprites == null) {
+        continue;
+      }
+      for (int j = 0; j < sprites.size(); j++) {
+        PreciseRectangle box = sprites.get(j).getBBox();
+        double left = box.getX() - renderedX[i], top = box.getY() - renderedY[i];
+        double dx = Math.max(Math.abs(left), Math.abs(left + box.getWidth()));
+        double dy = Math.max(Math.abs(top), Math.abs(top + box.getHeight()));
+        nodeExtent = Math.max(nodeExtent, Math.sqrt(dx * dx + dy * dy));
+      }
+    }
+  }
+
+  private static boolean contains(SpriteList<Sprite> sprites, double x, double y) {
+    if (sprites != null) {
+      for (int i = 0; i < sprites.size(); i++) {
+        if (sprites.get(i).getBBox().contains(x, y)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the current exact position of the given node. The returned point is a live view of the node's
+   * position, and will reflect later updates to the layout.
+   *
+   * @param node
+   * @return
+   */
+  public PrecisePoint getNodeCoords(N node) {
+    return layout.contains(node) ? new NodePoint(node, false) : null;
+  }
+
+  /**
+   * Gets the current velocity of the given node. The returned point is a live view of the node's
+   * velocity, and will reflect later updates to the layout.
+   * @param node
+   * @return
+   */
+  public PrecisePoint getNodeVector(N node) {
+    return layout.contains(node) ? new NodePoint(node, true) : null;
+  }
+
+  public List<N> getNodes() {
+    return layout.getNodes();
+  }
+
+  /**
+   * Gets the edges attached to the given node.
+   *
+   * @param node
+   * @return
+   */
+  public Set<E> getEdges(N node) {
+    return layout.getEdges(node);
+  }
+
+  /**
+   * Gets the nodes joined to the given node by an edge.
+   *
+   * @param node
+   * @return
+   */
+  public List<N> getNeighbors(N node) {
+    return layout.getNeighbors(node);
+  }
+
+  public Set<N> getLocked() {
+    return layout.getLocked();
+  }
+
+  /**
+   * Prevents the current node from having its position or velocity updated.
+   * 
+   * @param node
+   * @param isLocked
+   */
+  public void setNodeLocked(N node, boolean isLocked) {
+    layout.setLocked(node, isLocked);
+    if (!isLocked) {
+      wake();
+    }
+  }
+
+  /**
+   * Performs a single step of the force-directed layout and renders the result. If animations are
+   * enabled, each frame instead runs as many steps as fit in the frame budget, and renders once.
+   */
+  public void update() {
+    double start = clock.now();
+    prepareLayout();
+    if (metricsEnabled) {
+      metrics.add(Phase.PREPARE, clock.now() - start);
+    }
+    layoutEngine.step(layout);
+    render();
+    if (metricsEnabled) {
+      metrics.endFrame(clock.now() - start, 1, layout);
+    }
+  }
+
+  /**
+   * Draws each node that has moved to a different whole pixel since it was last drawn, and each edge
+   * attached to one. Everything is drawn if the graph has changed since the last render. Nodes and edges
+   * outside the visible area, grown by the {@link #setCullMargin(double) cull margin}, are hidden
+   * instead, and drawn again once they come back into view.
+   */
+  protected void render() {
+    double time = metricsEnabled ? clock.now() : 0;
+    List<N> nodes = layout.getNodes();
+    int count = nodes.size();
+    int edgeCount = layout.getEdgeCount();
+    double[] x = layout.getX(), y = layout.getY();
+    boolean renderAll = layout.getModCount() != renderedModCount;
+    if (renderAll) {
+      if (moved.length < count) {
+        int capacity = Math.max(count, 2 * moved.length);
+        renderedX = new int[capacity];
+        renderedY = new int[capacity];
+        moved = new boolean[capacity];
+        nodeVisible = new boolean[capacity];
+      }
+      if (edgeVisible.length < edgeCount) {
+        edgeVisible = new boolean[Math.max(edgeCount, 2 * edgeVisible.length)];
+      }
+      renderedModCount = layout.getModCount();
+      nodeGrid.build(x, y, null, count, Math.max(1, layout.getNodeDist()));
+    }
+    updateViewport();
+    if (!cameraApplied) {
+      applyCamera();
+    }
+    if (renderAll) {
+      //indexes changed, so last frame's count can't be trusted
+      nodesInView = 0;
+      for (int i = 0; i < count; i++) {
+        if (x[i] >= viewLeft && x[i] <= viewRight && y[i] >= viewTop && y[i] <= viewBottom) {
+          nodesInView++;
+        }
+      }
+    }
+    DetailLevel level = chooseDetailLevel(nodesInView, layout.getNodeDist() * cameraScale);
+    if (level != detailLevel) {
+      detailLevel = level;
+      renderAll = true;
+    }
+    if (renderAll) {
+      //renderers may draw nodes at a different size now
+      nodeExtent = -1;
+      //sampling by index, so the same edges stay drawn until the graph or the level changes
+      edgeSampleStride = level == DetailLevel.MINIMAL ? (edgeCount + minimalEdgeLimit - 1) / minimalEdgeLimit : 1;
+      edgeSampleStride = Math.max(1, edgeSampleStride);
+    }
+    //removed sprites need the surface redrawn even if nothing is left to render
+    boolean changed = renderAll;
+
+    // draw each node in view at its new position
+    int nodesRendered = 0;
+    nodesInView = 0;
+    for (int i = 0; i < count; i++) {
+      int px = (int) Math.round(x[i]), py = (int) Math.round(y[i]);
+      moved[i] = renderAll || px != renderedX[i] || py != renderedY[i];
+      renderedX[i] = px;
+      renderedY[i] = py;
+      if (moved[i]) {
+        nodeGrid.move(i, x[i], y[i]);
+      }
+      boolean inView = x[i] >= viewLeft && x[i] <= viewRight && y[i] >= viewTop && y[i] <= viewBottom;
+      if (inView) {
+        nodesInView++;
+        boolean appeared = renderAll || !nodeVisible[i];
+        if (moved[i] || appeared) {
+          N iNode = nodes.get(i);
+          renderStart.setX(x[i]);
+          renderStart.setY(y[i]);
+          renderContext.bind(nodeSprites, iNode);
+          if (appeared) {
+            renderContext.setHidden(false);
+          }
+          nodeRenderer.render(iNode, renderStart, renderContext);
+          nodesRendered++;
+        }
+      } else if (renderAll || nodeVisible[i]) {
+        hide(nodeSprites.get(nodes.get(i)));
+        changed = true;
+      }
+      nodeVisible[i] = inView;
+    }
+    if (metricsEnabled) {
+      double now = clock.now();
+      metrics.add(Phase.NODES, now - time);
+      time = now;
+    }
+
+    // update the edges attached to nodes that moved, one at a time or all together
+    int edgesRendered = batchEdgeRenderer == null ? renderEdges(renderAll) : renderEdgeBatch(renderAll);
+    changed |= edgeSpritesChanged;
+    if (metricsEnabled) {
+      metrics.add(Phase.EDGES, clock.now() - time);
+      metrics.rendered(nodesRendered, edgesRendered);
+    }
+    renderChanged = changed || nodesRendered > 0 || edgesRendered > 0;
+  }
+
+  /**
+   * Updates the position of each edge in view attached to a node that moved, hiding those that left
+   * the view.
+   *
+   * @return the number of edges rendered
+   */
+  private int renderEdges(boolean renderAll) {
+    List<E> edges = layout.getEdges();
+    double[] x = layout.getX(), y = layout.getY();
+    int[] edgeTo = layout.getEdgeTo(), edgeFrom = layout.getEdgeFrom();
+    int edgesRendered = 0;
+    edgeSpritesChanged = false;
+    for (int i = 0; i < edges.size(); i++) {
+      int to = edgeTo[i], from = edgeFrom[i];
+      double toX = x[to], toY = y[to], fromX = x[from], fromY = y[from];
+      boolean inView = i % edgeSampleStride == 0 && isSegmentInView(toX, toY, fromX, fromY);
+      if (inView) {
+        boolean appeared = renderAll || !edgeVisible[i];
+        if (moved[to] || moved[from] || appeared) {
+          E e = edges.get(i);
+          renderStart.setX(toX);
+          renderStart.setY(toY);
+          renderEnd.setX(fromX);
+          renderEnd.setY(fromY);
+          renderContext.bind(edgeSprites, e);
+          if (appeared) {
+            renderContext.setHidden(false);
+          }
+          edgeRenderer.render(e, renderStart, renderEnd, renderContext);
+          edgesRendered++;
+        }
+      } else if (renderAll || edgeVisible[i]) {
+        hide(edgeSprites.get(edges.get(i)));
+        edgeSpritesChanged = true;
+      }
+      edgeVisible[i] = inView;
+    }
+    return edgesRendered;
+  }
+
+  /**
+   * Gathers every edge in view and passes them to the batch renderer, if any of them moved or the set
+   * of edges in view changed.
+   *
+   * @return the number of edges rendered
+   */
+  private int renderEdgeBatch(boolean renderAll) {
+    int edgeCount = layout.getEdgeCount();
+    double[] x = layout.getX(), y = layout.getY();
+    int[] edgeTo = layout.getEdgeTo(), edgeFrom = layout.getEdgeFrom();
+    if (batchIndexes.length < edgeCount) {
+      batchIndexes = new int[Math.max(edgeCount, 2 * batchIndexes.length)];
+      batchSegments = new double[4 * batchIndexes.length];
+    }
+    boolean dirty = renderAll;
+    int count = 0;
+    for (int i = 0; i < edgeCount; i++) {
+      int to = edgeTo[i], from = edgeFrom[i];
+      double toX = x[to], toY = y[to], fromX = x[from], fromY = y[from];
+      boolean inView = i % edgeSampleStride == 0 && isSegmentInView(toX, toY, fromX, fromY);
+      if (inView) {
+        dirty |= moved[to] || moved[from] || !edgeVisible[i];
+        batchIndexes[count] = i;
+        batchSegments[4 * count] = toX;
+        batchSegments[4 * count + 1] = toY;
+        batchSegments[4 * count + 2] = fromX;
+        batchSegments[4 * count + 3] = fromY;
+        count++;
+      } else {
+        dirty |= edgeVisible[i];
+      }
+      edgeVisible[i] = inView;
+    }
+    //even with nothing left in view, the renderer needs to clear what it drew before
+    edgeSpritesChanged = dirty;
+    if (!dirty) {
+      return 0;
+    }
+    renderContext.bind(batchSprites);
+    batchEdgeRenderer.render(batchSegments, batchIndexes, count, renderContext);
+    return count;
+  }
+
+  /**
+   * Picks the level of detail for the given number of nodes in view and on-screen spacing. The current
+   * level is kept until the graph is past its limits by the hysteresis fraction, while moving to a
+   * more detailed level needs the graph to be within that level's limits.
+   */
+  private DetailLevel chooseDetailLevel(int nodes, double spacing) {
+    if (fixedDetailLevel != null) {
+      return fixedDetailLevel;
+    }
+    double slack = 1 + DETAIL_HYSTERESIS;
+    if (fits(nodes, spacing, fullDetailNodes, fullDetailSpacing, detailLevel == DetailLevel.FULL ? slack : 1)) {
+      return DetailLevel.FULL;
+    }
+    if (fits(nodes, spacing, simpleDetailNodes, simpleDetailSpacing,
+        detailLevel != DetailLevel.MINIMAL ? slack : 1)) {
+      return DetailLevel.SIMPLE;
+    }
+    return DetailLevel.MINIMAL;
+  }
+
+  private static boolean fits(int nodes, double spacing, int nodeLimit, double spacingLimit, double slack) {
+    return nodes <= nodeLimit * slack && spacing >= spacingLimit / slack;
+  }
+
+  private boolean isSegmentInView(double x1, double y1, double x2, double y2) {
+    return Math.max(x1, x2) >= viewLeft && Math.min(x1, x2) <= viewRight
+        && Math.max(y1, y2) >= viewTop && Math.min(y1, y2) <= viewBottom;
+  }
+
+  /**
+   * Finds the area to render within in world coordinates, the visible area of this widget grown by the
+   * cull margin. Until the widget has a size, everything is rendered.
+   */
+  private void updateViewport() {
+    int width = getOffsetWidth(), height = getOffsetHeight();
+    if (width == 0 || height == 0) {
+      viewLeft = viewTop = Double.NEGATIVE_INFINITY;
+      viewRight = viewBottom = Double.POSITIVE_INFINITY;
+      return;
+    }
+    viewLeft = toWorldX(-cullMargin);
+    viewTop = toWorldY(-cullMargin);
+    viewRight = toWorldX(width + cullMargin);
+    viewBottom = toWorldY(height + cullMargin);
+  }
+
+  /**
+   * Sets the view box of the draw surface to the part of the world the camera shows. Until the surface
+   * has been drawn and the widget has a size, this is left to the next render.
+   */
+  private void applyCamera() {
+    int width = getOffsetWidth(), height = getOffsetHeight();
+    if (surface.getSurfaceElement() == null || width == 0 || height == 0) {
+      cameraApplied = false;
+      return;
+    }
+    surface.setViewBox(cameraX, cameraY, width / cameraScale, height / cameraScale);
+    cameraApplied = true;
+  }
+
+  /**
+   * Renders what has come into view on the next animation frame, unless a frame is already on its way.
+   */
+  private void refreshView() {
+    if (isAttached() && animationHandle == null && viewHandle == null) {
+      viewHandle = AnimationScheduler.get().requestAnimationFrame(viewCallback);
+    }
+  }
+
+  private static void hide(SpriteList<Sprite> sprites) {
+    if (sprites != null) {
+      for (int i = 0; i < sprites.size(); i++) {
+        sprites.get(i).setHidden(true);
+      }
+    }
+  }
+
+  /**
+   * Reads the browser's high resolution timer where there is one, as phases of a frame often take well
+   * under a millisecond.
+   */
+  private static native double currentTime() /*-{
+    var performance = $wnd.performance;
+    return performance && performance.now ? performance.now() : new Date().getTime();
+  }-*/;
+
+  @Override
+  protected void onAttach() {
+    super.onAttach();
+    sleeping = false;
+    if (isAnimationEnabled()) {
+      animationHandle = AnimationScheduler.get().requestAnimationFrame(animationCallback);
+    }
+  }
+
+  @Override
+  protected void onDetach() {
+    super.onDetach();
+    if (isAnimationEnabled() && animationHandle != null) {
+      animationHandle.cancel();
+      animationHandle = null;
+    }
+    if (viewHandle != null) {
+      viewHandle.cancel();
+      viewHandle = null;
+    }
+  }
+
+  @Override
+  protected void onResize(int width, int height) {
+    super.onResize(width, height);
+    //the view box covers the widget, so must change size with it
+    applyCamera();
+    refreshView();
+  }
+}
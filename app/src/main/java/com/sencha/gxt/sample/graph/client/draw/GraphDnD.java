@@ -22,11 +22,14 @@ package com.sencha.gxt.sample.graph.client.draw;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.dom.client.Element;
 import com.google.gwt.dom.client.Touch;
 import com.google.gwt.event.dom.client.MouseDownEvent;
 import com.google.gwt.event.dom.client.MouseDownHandler;
@@ -36,13 +39,14 @@ import com.google.gwt.user.client.Event;
 import com.google.gwt.user.client.Event.NativePreviewEvent;
 import com.google.web.bindery.event.shared.HandlerRegistration;
 import com.sencha.gxt.core.client.util.BaseEventPreview;
-import com.sencha.gxt.core.client.util.Point;
+import com.sencha.gxt.core.client.util.PrecisePoint;
 import com.sencha.gxt.sample.graph.client.model.Edge;
 import com.sencha.gxt.sample.graph.client.model.Node;
 
 /**
  * Simple abstract class containing dnd wiring, with abstract methods to implement various drag/drop
- * behaviors on the GraphComponent
+ * behaviors on the GraphComponent. Positions are passed to those methods in world coordinates, the
+ * coordinates of nodes in the layout, whatever the camera of the graph shows.
  * 
  * @param <N>
  * @param <E>
@@ -99,10 +103,10 @@ public abstract class GraphDnD<N extends Node, E extends Edge> {
   private final TouchHandler touchHandler = new TouchHandler();
   private HandlerRegistration touchHandlerReg;
 
-  private Point mouseDragStartPosition;
+  private PrecisePoint mouseDragStartPosition;
 
-  private final Map<Integer, Point> touchDragStartPositions = new HashMap<Integer, Point>();
-  private final Map<Integer, Point> touchLastDragPositions = new HashMap<Integer, Point>();
+  private final Map<Integer, PrecisePoint> touchDragStartPositions = new HashMap<Integer, PrecisePoint>();
+  private final Map<Integer, PrecisePoint> touchLastDragPositions = new HashMap<Integer, PrecisePoint>();
 
   public GraphDnD(GraphComponent<N,E> graph) {
     this.graph = graph;
@@ -150,7 +154,8 @@ public abstract class GraphDnD<N extends Node, E extends Edge> {
   protected void onMouseDown(MouseDownEvent event) {
     event.preventDefault();
 
-    mouseDragStartPosition = new Point(event.getRelativeX(graph.getElement()), event.getRelativeY(graph.getElement()));
+    mouseDragStartPosition = new PrecisePoint(graph.toWorldX(event.getRelativeX(graph.getElement())),
+        graph.toWorldY(event.getRelativeY(graph.getElement())));
 
     boolean start = onStartDrag("mouse", mouseDragStartPosition.getX(), mouseDragStartPosition.getY());
 
@@ -168,8 +173,8 @@ public abstract class GraphDnD<N extends Node, E extends Edge> {
   protected void onMouseMove(Event event) {
     assert mouseDragStartPosition != null : "onMouseMove called while not actually dragging!";
     //TODO fire an event about the move
-    int x = event.getClientX() - graph.getElement().getAbsoluteTop() + graph.getElement().getScrollTop() + graph.getElement().getOwnerDocument().getScrollTop();
-    int y = event.getClientY() - graph.getElement().getAbsoluteLeft() + graph.getElement().getScrollLeft() + graph.getElement().getOwnerDocument().getScrollLeft();
+    double x = toWorldX(event.getClientX());
+    double y = toWorldY(event.getClientY());
 
     //TODO consider getting the offset from the original mouse point to the object
     //     and using that here
@@ -179,8 +184,8 @@ public abstract class GraphDnD<N extends Node, E extends Edge> {
   protected void onMouseUp(Event event) {
     assert mouseDragStartPosition != null : "onMouseUp called while not actually dragging!";
     //TODO fire an event about the release
-    int x = event.getClientX() - graph.getElement().getAbsoluteTop() + graph.getElement().getScrollTop() + graph.getElement().getOwnerDocument().getScrollTop();
-    int y = event.getClientY() - graph.getElement().getAbsoluteLeft() + graph.getElement().getScrollLeft() + graph.getElement().getOwnerDocument().getScrollLeft();
+    double x = toWorldX(event.getClientX());
+    double y = toWorldY(event.getClientY());
 
     onDrop("mouse", x, y);
 
@@ -193,7 +198,8 @@ public abstract class GraphDnD<N extends Node, E extends Edge> {
 
     for (int i = 0; i < touches.length(); i++) {
       Touch t = touches.get(i);
-      Point dragStartPosition = new Point(t.getRelativeX(graph.getElement()), t.getRelativeY(graph.getElement()));
+      PrecisePoint dragStartPosition = new PrecisePoint(graph.toWorldX(t.getRelativeX(graph.getElement())),
+          graph.toWorldY(t.getRelativeY(graph.getElement())));
       log.finer("Touch start: " + t.getIdentifier() + " @ " + dragStartPosition.toString());
 
       boolean start = onStartDrag("touch" + t.getIdentifier(), dragStartPosition.getX(), dragStartPosition.getY());
@@ -222,10 +228,10 @@ public abstract class GraphDnD<N extends Node, E extends Edge> {
         continue;
       }
       //TODO fire an event about the move
-      int x = t.getClientX() - graph.getElement().getAbsoluteTop() + graph.getElement().getScrollTop() + graph.getElement().getOwnerDocument().getScrollTop();
-      int y = t.getClientY() - graph.getElement().getAbsoluteLeft() + graph.getElement().getScrollLeft() + graph.getElement().getOwnerDocument().getScrollLeft();
+      double x = toWorldX(t.getClientX());
+      double y = toWorldY(t.getClientY());
 
-      touchLastDragPositions.put(t.getIdentifier(), new Point(x, y));
+      touchLastDragPositions.put(t.getIdentifier(), new PrecisePoint(x, y));
       //TODO consider getting the offset from the original mouse point to the object
       //     and using that here
       onDrag("touch" + t.getIdentifier(), x, y);
@@ -245,7 +251,7 @@ public abstract class GraphDnD<N extends Node, E extends Edge> {
     log.finer("now down to " + identifiers);
     for (Integer identifier : identifiers) {
       log.finer("[End] event for " + identifier);
-      Point lastPosition = touchLastDragPositions.get(identifier);
+      PrecisePoint lastPosition = touchLastDragPositions.get(identifier);
       onDrop("touch" + identifier, lastPosition.getX(), lastPosition.getY());
 
       log.finer("Touch end: " + identifier + " @ " + lastPosition.toString());
@@ -262,11 +268,27 @@ public abstract class GraphDnD<N extends Node, E extends Edge> {
     onTouchEnd(e);
   }
 
-  protected abstract boolean onStartDrag(String key, int x, int y);
+  /**
+   * Converts the x coordinate of an event in the browser window to world coordinates.
+   */
+  private double toWorldX(int clientX) {
+    Element e = graph.getElement();
+    return graph.toWorldX(clientX - e.getAbsoluteLeft() + e.getScrollLeft() + e.getOwnerDocument().getScrollLeft());
+  }
+
+  /**
+   * Converts the y coordinate of an event in the browser window to world coordinates.
+   */
+  private double toWorldY(int clientY) {
+    Element e = graph.getElement();
+    return graph.toWorldY(clientY - e.getAbsoluteTop() + e.getScrollTop() + e.getOwnerDocument().getScrollTop());
+  }
+
+  protected abstract boolean onStartDrag(String key, double x, double y);
 
-  protected abstract void onDrag(String key, int x, int y);
+  protected abstract void onDrag(String key, double x, double y);
 
-  protected abstract void onDrop(String key, int x, int y);
+  protected abstract void onDrop(String key, double x, double y);
 
   protected abstract void onCancel();
 }
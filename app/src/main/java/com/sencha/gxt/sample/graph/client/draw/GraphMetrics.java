@@ -0,0 +1,343 @@
+package com.sencha.gxt.sample.graph.client.draw;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.sencha.gxt.sample.graph.client.layout.Clock;
+import com.sencha.gxt.sample.graph.client.layout.GraphLayout;
+import com.sencha.gxt.sample.graph.client.layout.LayoutProfiler;
+
+/**
+ * Measurements of the work a {@link GraphComponent} does each frame: the time spent in each phase of
+ * the layout and of rendering, the layout steps run, how far the layout is from settling, the size of
+ * the graph, the nodes and edges rendered, and the sprites the renderers create, reuse and release. Per-frame
+ * times are kept in a {@link RollingHistogram} for each phase over the last {@link #WINDOW} frames, and
+ * everything else is kept for the last frame along with running totals. Recording costs a few reads of
+ * the clock per frame and per layout step, and nothing is allocated once the component is running, so
+ * metrics can be left on outside of development.
+ *
+ * @see GraphComponent#getMetrics()
+ */
+public class GraphMetrics {
+  /**
+   * The number of frames the histograms cover, a couple of seconds at 60 frames per second.
+   */
+  public static final int WINDOW = 120;
+
+  /**
+   * The parts of a frame that are timed separately.
+   */
+  public enum Phase {
+    /**
+     * Placing new nodes, and the layout engine's preparation for each step, see
+     * {@link LayoutProfiler.Phase#PREPARE}.
+     */
+    PREPARE,
+    /**
+     * Pushing nodes apart.
+     */
+    REPULSION,
+    /**
+     * Pulling nodes together along their edges, and toward the center.
+     */
+    ATTRACTION,
+    /**
+     * Moving the nodes according to their forces.
+     */
+    INTEGRATION,
+    /**
+     * Calling the {@link GraphComponent.NodeRenderer} for each node.
+     */
+    NODES,
+    /**
+     * Calling the {@link GraphComponent.EdgeRenderer} for each edge.
+     */
+    EDGES,
+    /**
+     * Redrawing the surface once the renderers have updated the sprites.
+     */
+    REDRAW,
+    /**
+     * The whole frame, including anything not covered by the other phases.
+     */
+    FRAME
+  }
+
+  private static final Phase[] PHASES = Phase.values();
+
+  private final LayoutProfiler profiler;
+  private final RollingHistogram[] histograms = new RollingHistogram[PHASES.length];
+  private final double[] frameTimes = new double[PHASES.length];
+
+  private long frames;
+  private long ticks;
+  private int lastFrameTicks;
+  private double kineticEnergy;
+  private double maxDisplacement;
+  private int nodeCount;
+  private int edgeCount;
+  private long spritesCreated;
+  private long spritesReleased;
+  private long spritesReused;
+  private int frameSpritesCreated;
+  private int frameSpritesReleased;
+  private int frameSpritesReused;
+  private int lastFrameSpritesCreated;
+  private int lastFrameSpritesReleased;
+  private int lastFrameSpritesReused;
+  private int frameNodesRendered;
+  private int frameEdgesRendered;
+  private int lastFrameNodesRendered;
+  private int lastFrameEdgesRendered;
+
+  /**
+   * Creates metrics timed by the given clock.
+   *
+   * @param clock the source of the current time, in milliseconds
+   */
+  public GraphMetrics(Clock clock) {
+    profiler = new LayoutProfiler(clock);
+    for (int i = 0; i < PHASES.length; i++) {
+      histograms[i] = new RollingHistogram(WINDOW);
+    }
+  }
+
+  /**
+   * Gets the profiler to set on the layout, so that its engine's phases are timed.
+   *
+   * @return
+   */
+  LayoutProfiler getProfiler() {
+    return profiler;
+  }
+
+  /**
+   * Adds to the time spent in the given phase of the current frame.
+   */
+  void add(Phase phase, double time) {
+    frameTimes[phase.ordinal()] += time;
+  }
+
+  void rendered(int nodes, int edges) {
+    frameNodesRendered += nodes;
+    frameEdgesRendered += edges;
+  }
+
+  void spritesCreated(int count) {
+    frameSpritesCreated += count;
+  }
+
+  void spritesReleased(int count) {
+    frameSpritesReleased += count;
+  }
+
+  void spritesReused(int count) {
+    frameSpritesReused += count;
+  }
+
+  /**
+   * Records the frame that just finished, adding the time the layout recorded in its profiler and
+   * starting the next frame from zero.
+   *
+   * @param frameTime the time the whole frame took
+   * @param frameTicks the number of layout steps completed in the frame
+   * @param layout the layout that was run
+   */
+  void endFrame(double frameTime, int frameTicks, GraphLayout<?, ?> layout) {
+    frameTimes[Phase.PREPARE.ordinal()] += profiler.getTime(LayoutProfiler.Phase.PREPARE);
+    frameTimes[Phase.REPULSION.ordinal()] += profiler.getTime(LayoutProfiler.Phase.REPULSION);
+    frameTimes[Phase.ATTRACTION.ordinal()] += profiler.getTime(LayoutProfiler.Phase.ATTRACTION);
+    frameTimes[Phase.INTEGRATION.ordinal()] += profiler.getTime(LayoutProfiler.Phase.INTEGRATION);
+    frameTimes[Phase.FRAME.ordinal()] = frameTime;
+    profiler.reset();
+    for (int i = 0; i < PHASES.length; i++) {
+      histograms[i].add(frameTimes[i]);
+      frameTimes[i] = 0;
+    }
+
+    frames++;
+    ticks += frameTicks;
+    lastFrameTicks = frameTicks;
+    kineticEnergy = layout.getKineticEnergy();
+    maxDisplacement = layout.getMaxDisplacement();
+    nodeCount = layout.getNodeCount();
+    edgeCount = layout.getEdgeCount();
+
+    spritesCreated += frameSpritesCreated;
+    spritesReleased += frameSpritesReleased;
+    spritesReused += frameSpritesReused;
+    lastFrameSpritesCreated = frameSpritesCreated;
+    lastFrameSpritesReleased = frameSpritesReleased;
+    lastFrameSpritesReused = frameSpritesReused;
+    frameSpritesCreated = 0;
+    frameSpritesReleased = 0;
+    frameSpritesReused = 0;
+    lastFrameNodesRendered = frameNodesRendered;
+    lastFrameEdgesRendered = frameEdgesRendered;
+    frameNodesRendered = 0;
+    frameEdgesRendered = 0;
+  }
+
+  /**
+   * Drops every measurement, starting again as if no frames had been drawn.
+   */
+  public void reset() {
+    profiler.reset();
+    for (int i = 0; i < PHASES.length; i++) {
+      histograms[i].clear();
+      frameTimes[i] = 0;
+    }
+    frames = 0;
+    ticks = 0;
+    lastFrameTicks = 0;
+    spritesCreated = 0;
+    spritesReleased = 0;
+    spritesReused = 0;
+    frameSpritesCreated = 0;
+    frameSpritesReleased = 0;
+    frameSpritesReused = 0;
+    lastFrameSpritesCreated = 0;
+    lastFrameSpritesReleased = 0;
+    lastFrameSpritesReused = 0;
+    frameNodesRendered = 0;
+    frameEdgesRendered = 0;
+    lastFrameNodesRendered = 0;
+    lastFrameEdgesRendered = 0;
+  }
+
+  /**
+   * Gets the time spent in the given phase by each of the last {@link #WINDOW} frames.
+   *
+   * @param phase the phase to get the times of
+   * @return the histogram of per-frame times, in milliseconds
+   */
+  public RollingHistogram getHistogram(Phase phase) {
+    return histograms[phase.ordinal()];
+  }
+
+  /**
+   * Returns the number of frames recorded since the component was created or the metrics reset.
+   *
+   * @return
+   */
+  public long getFrames() {
+    return frames;
+  }
+
+  /**
+   * Returns the number of layout steps completed since the component was created or the metrics reset.
+   *
+   * @return
+   */
+  public long getTicks() {
+    return ticks;
+  }
+
+  public int getLastFrameTicks() {
+    return lastFrameTicks;
+  }
+
+  /**
+   * Returns the total kinetic energy of the nodes at the end of the last frame.
+   *
+   * @return
+   */
+  public double getKineticEnergy() {
+    return kineticEnergy;
+  }
+
+  /**
+   * Returns the furthest any node moved in the last step of the last frame.
+   *
+   * @return
+   */
+  public double getMaxDisplacement() {
+    return maxDisplacement;
+  }
+
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Returns the number of new sprites renderers have added since the component was created or the
+   * metrics reset, not counting those reused from the component's pool.
+   *
+   * @return
+   */
+  public long getSpritesCreated() {
+    return spritesCreated;
+  }
+
+  /**
+   * Returns the number of sprites released since the component was created or the metrics reset,
+   * whether by renderers or by removing the nodes and edges they were drawn for.
+   *
+   * @return
+   */
+  public long getSpritesReleased() {
+    return spritesReleased;
+  }
+
+  /**
+   * Returns the number of released sprites renderers have taken back from the component's pool since
+   * the component was created or the metrics reset.
+   *
+   * @return
+   */
+  public long getSpritesReused() {
+    return spritesReused;
+  }
+
+  public int getLastFrameSpritesCreated() {
+    return lastFrameSpritesCreated;
+  }
+
+  public int getLastFrameSpritesReleased() {
+    return lastFrameSpritesReleased;
+  }
+
+  public int getLastFrameSpritesReused() {
+    return lastFrameSpritesReused;
+  }
+
+  /**
+   * Returns the number of nodes passed to the renderer in the last frame, those that moved to a
+   * different whole pixel, or every node if the graph changed.
+   *
+   * @return
+   */
+  public int getLastFrameNodesRendered() {
+    return lastFrameNodesRendered;
+  }
+
+  /**
+   * Returns the number of edges passed to the renderer in the last frame, those with an end that moved.
+   *
+   * @return
+   */
+  public int getLastFrameEdgesRendered() {
+    return lastFrameEdgesRendered;
+  }
+}
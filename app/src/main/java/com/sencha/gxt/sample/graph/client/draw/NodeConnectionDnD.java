@@ -42,8 +42,8 @@ public class NodeConnectionDnD<N extends Node, E extends Edge> extends GraphDnD<
   }
 
   @Override
-  protected boolean onStartDrag(String key, int x, int y) {
-    N startNode = getGraph().getNodeAtCoords(x, y);
+  protected boolean onStartDrag(String key, double x, double y) {
+    N startNode = getGraph().getNodeAt(x, y);
     if (startNode != null) {
       startNodes.put(key, startNode);
       //stop animations for easier usability (consider replacing with locking nodes that we get near?)
@@ -64,8 +64,8 @@ public class NodeConnectionDnD<N extends Node, E extends Edge> extends GraphDnD<
   }
 
   @Override
-  protected void onDrag(String key, int x, int y) {
-    N endNode = getGraph().getNodeAtCoords(x, y);
+  protected void onDrag(String key, double x, double y) {
+    N endNode = getGraph().getNodeAt(x, y);
     final LineTo line;
     if (endNode != null) {
       // lock to node if it exists
@@ -84,10 +84,10 @@ public class NodeConnectionDnD<N extends Node, E extends Edge> extends GraphDnD<
   }
 
   @Override
-  protected void onDrop(String key, int x, int y) {
+  protected void onDrop(String key, double x, double y) {
     getGraph().remove(newConnections.remove(key));
 
-    N endNode = getGraph().getNodeAtCoords(x, y);
+    N endNode = getGraph().getNodeAt(x, y);
     if (endNode != null) {
       getGraph().addEdge(createEdge(startNodes.get(key), endNode));
     }
@@ -33,8 +33,8 @@ public class NodePositionDnD<N extends Node, E extends Edge> extends GraphDnD<N,
     super(graph);
   }
 
-  protected boolean onStartDrag(String key, int x, int y) {
-    N activeNode = getGraph().getNodeAtCoords(x, y);
+  protected boolean onStartDrag(String key, double x, double y) {
+    N activeNode = getGraph().getNodeAt(x, y);
     if (activeNode != null) {
       activeNodes.put(key, activeNode);
       getGraph().setNodeLocked(activeNode, true);
@@ -43,11 +43,11 @@ public class NodePositionDnD<N extends Node, E extends Edge> extends GraphDnD<N,
     return false;
   }
 
-  protected void onDrag(String key, int x, int y) {
+  protected void onDrag(String key, double x, double y) {
     getGraph().setCoords(activeNodes.get(key), x, y);
   }
 
-  protected void onDrop(String key, int x, int y) {
+  protected void onDrop(String key, double x, double y) {
     getGraph().setNodeLocked(activeNodes.remove(key), false);
   }
 
@@ -0,0 +1,75 @@
+package com.sencha.gxt.sample.graph.client.draw;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.sencha.gxt.core.client.util.PrecisePoint;
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * Moves the camera of the graph so that the point first pressed stays under the mouse or finger. Only
+ * one drag at a time moves the camera, others are ignored.
+ *
+ * @param <N>
+ * @param <E>
+ */
+public class PanGraphDnD<N extends Node, E extends Edge> extends GraphDnD<N, E> {
+  private String activeKey;
+  private final PrecisePoint grabbed = new PrecisePoint();
+
+  public PanGraphDnD(GraphComponent<N, E> graph) {
+    super(graph);
+  }
+
+  @Override
+  protected boolean onStartDrag(String key, double x, double y) {
+    if (activeKey != null) {
+      return false;
+    }
+    activeKey = key;
+    grabbed.setX(x);
+    grabbed.setY(y);
+    return true;
+  }
+
+  @Override
+  protected void onDrag(String key, double x, double y) {
+    if (key.equals(activeKey)) {
+      //the world point under the pointer has drifted from the grabbed one, move the camera to undo that
+      GraphComponent<N, E> graph = getGraph();
+      graph.setCamera(graph.getCameraX() - (x - grabbed.getX()), graph.getCameraY() - (y - grabbed.getY()),
+          graph.getCameraScale());
+    }
+  }
+
+  @Override
+  protected void onDrop(String key, double x, double y) {
+    if (key.equals(activeKey)) {
+      onDrag(key, x, y);
+      activeKey = null;
+    }
+  }
+
+  @Override
+  protected void onCancel() {
+    activeKey = null;
+  }
+}
@@ -0,0 +1,183 @@
+package com.sencha.gxt.sample.graph.client.draw;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Distribution of the most recent samples of some duration, such as the time taken by each animation
+ * frame. Samples are counted into buckets that grow by a quarter of a doubling each, from 1/128ms up to
+ * about half a second, so that percentiles are within 20% of the true value across that whole range.
+ * Adding a sample takes constant time and never allocates, so a histogram can be kept up to date on
+ * every frame.
+ */
+public class RollingHistogram {
+  private static final int BUCKETS = 64;
+  private static final double MIN_VALUE = 1.0 / 128;
+  private static final double BUCKET_RATIO = Math.pow(2, 0.25);
+  private static final double LOG_BUCKET_RATIO = Math.log(BUCKET_RATIO);
+
+  private final double[] samples;
+  private final int[] counts = new int[BUCKETS];
+  private int next;
+  private int size;
+  private double sum;
+
+  /**
+   * Creates a histogram over the given number of most recent samples.
+   *
+   * @param window the number of samples to keep
+   */
+  public RollingHistogram(int window) {
+    assert window > 0;
+    samples = new double[window];
+  }
+
+  /**
+   * Adds a sample, dropping the oldest if the window is full.
+   *
+   * @param value the new sample, in milliseconds
+   */
+  public void add(double value) {
+    if (size == samples.length) {
+      double oldest = samples[next];
+      counts[bucket(oldest)]--;
+      sum -= oldest;
+    } else {
+      size++;
+    }
+    samples[next] = value;
+    counts[bucket(value)]++;
+    sum += value;
+    next = (next + 1) % samples.length;
+  }
+
+  /**
+   * Drops every sample.
+   */
+  public void clear() {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = 0;
+    }
+    next = 0;
+    size = 0;
+    sum = 0;
+  }
+
+  private static int bucket(double value) {
+    if (value < MIN_VALUE) {
+      return 0;
+    }
+    int bucket = 1 + (int) (Math.log(value / MIN_VALUE) / LOG_BUCKET_RATIO);
+    return Math.min(bucket, BUCKETS - 1);
+  }
+
+  /**
+   * Returns the number of samples in the window.
+   *
+   * @return
+   */
+  public int getCount() {
+    return size;
+  }
+
+  /**
+   * Returns the most recent sample, or zero if there are none.
+   *
+   * @return
+   */
+  public double getLast() {
+    return size == 0 ? 0 : samples[(next + samples.length - 1) % samples.length];
+  }
+
+  /**
+   * Returns the mean of the samples in the window, or zero if there are none.
+   *
+   * @return
+   */
+  public double getMean() {
+    return size == 0 ? 0 : sum / size;
+  }
+
+  /**
+   * Returns the largest sample in the window, or zero if there are none.
+   *
+   * @return
+   */
+  public double getMax() {
+    double max = 0;
+    for (int i = 0; i < size; i++) {
+      max = Math.max(max, samples[i]);
+    }
+    return max;
+  }
+
+  /**
+   * Estimates the value that the given fraction of the samples in the window are at or below, as the
+   * upper bound of the bucket it falls in.
+   *
+   * @param fraction the fraction of samples, such as 0.95 for the 95th percentile
+   * @return the estimated percentile, or zero if there are no samples
+   */
+  public double getPercentile(double fraction) {
+    if (size == 0) {
+      return 0;
+    }
+    int target = Math.max(1, (int) Math.ceil(fraction * size));
+    int seen = 0;
+    for (int b = 0; b < BUCKETS; b++) {
+      seen += counts[b];
+      if (seen >= target) {
+        //the top bucket is open ended, and no bucket's bound is any use past the largest sample
+        return Math.min(b == BUCKETS - 1 ? Double.MAX_VALUE : getBucketUpperBound(b), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Returns the number of buckets samples are counted into, for drawing the distribution.
+   *
+   * @return
+   */
+  public int getBucketCount() {
+    return BUCKETS;
+  }
+
+  /**
+   * Returns the number of samples in the window that fall in the given bucket.
+   *
+   * @param bucket the index of the bucket, from zero for the smallest values
+   * @return
+   */
+  public int getBucketSize(int bucket) {
+    return counts[bucket];
+  }
+
+  /**
+   * Returns the value below which samples fall in the given bucket or an earlier one. The last bucket
+   * also holds every sample beyond its bound.
+   *
+   * @param bucket the index of the bucket, from zero for the smallest values
+   * @return the upper bound of the bucket, in milliseconds
+   */
+  public double getBucketUpperBound(int bucket) {
+    return MIN_VALUE * Math.pow(BUCKET_RATIO, bucket);
+  }
+}
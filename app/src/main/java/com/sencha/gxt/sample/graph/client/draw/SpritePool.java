@@ -0,0 +1,107 @@
+package com.sencha.gxt.sample.graph.client.draw;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sencha.gxt.chart.client.draw.sprite.Sprite;
+
+/**
+ * Sprites no longer drawn for any node or edge, kept hidden on the surface so that renderers can take
+ * them back instead of creating new ones. Adding a sprite to a surface and removing it again both cost
+ * DOM work and a search of the surface's list of sprites, so reusing them keeps regenerating or
+ * reshaping a graph from allocating and deleting one set of elements after another. Sprites are kept by
+ * their exact class, as a renderer can only reuse a sprite of the type it draws.
+ */
+class SpritePool {
+  private final Map<Class<?>, List<Sprite>> free = new HashMap<Class<?>, List<Sprite>>();
+  private int size;
+  private int maxSize;
+
+  public SpritePool(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Hides the given sprite and keeps it for reuse, or removes it from its surface if the pool is full.
+   *
+   * @param sprite a sprite no longer drawn for anything
+   * @return true if the sprite was kept
+   */
+  public boolean release(Sprite sprite) {
+    if (size >= maxSize) {
+      sprite.remove();
+      return false;
+    }
+    sprite.setHidden(true);
+    List<Sprite> sprites = free.get(sprite.getClass());
+    if (sprites == null) {
+      sprites = new ArrayList<Sprite>();
+      free.put(sprite.getClass(), sprites);
+    }
+    sprites.add(sprite);
+    size++;
+    return true;
+  }
+
+  /**
+   * Takes a sprite of exactly the given class out of the pool. It is still on the surface, hidden, and
+   * keeps every attribute it was last drawn with.
+   *
+   * @param type the class of sprite wanted
+   * @return a released sprite of that class, or null if there are none
+   */
+  @SuppressWarnings("unchecked")
+  public <S extends Sprite> S take(Class<S> type) {
+    List<Sprite> sprites = free.get(type);
+    if (sprites == null || sprites.isEmpty()) {
+      return null;
+    }
+    size--;
+    return (S) sprites.remove(sprites.size() - 1);
+  }
+
+  /**
+   * Sets the most sprites to keep, removing any past that from their surface.
+   *
+   * @param maxSize the most sprites to keep
+   */
+  public void setMaxSize(int maxSize) {
+    this.maxSize = maxSize;
+    for (List<Sprite> sprites : free.values()) {
+      while (size > maxSize && !sprites.isEmpty()) {
+        sprites.remove(sprites.size() - 1).remove();
+        size--;
+      }
+    }
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,179 @@
+package com.sencha.gxt.sample.graph.benchmarks;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.sencha.gxt.sample.graph.client.layout.GraphLayout;
+import com.sencha.gxt.sample.graph.client.layout.PivotMdsPlacement;
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * A generated graph to benchmark against, described by a string of the form {@code kind-size} so that it
+ * can be passed as a single JMH parameter. The kinds are those the sample app generates, plus two that
+ * stay sparse as they grow large:
+ * <ul>
+ * <li>{@code ring-n}: n nodes in a cycle</li>
+ * <li>{@code mesh-n}: n nodes, each connected to every other, as the app's Mesh menu builds</li>
+ * <li>{@code star-n}: n nodes around one center node</li>
+ * <li>{@code grid-n}: about n nodes in a square lattice</li>
+ * <li>{@code random-n}: n nodes joined by a random spanning tree, plus random edges up to an average
+ * degree of four</li>
+ * </ul>
+ * The same description always builds the same graph.
+ */
+public class BenchmarkGraph {
+  private static final int RANDOM_DEGREE = 4;
+
+  private final List<Node> nodes = new ArrayList<Node>();
+  private final List<Edge> edges = new ArrayList<Edge>();
+  private final Set<Edge> edgeSet = new HashSet<Edge>();
+
+  /**
+   * Builds the graph with the given description.
+   *
+   * @param spec the kind and size of graph, such as {@code ring-128}
+   * @return the new graph
+   */
+  public static BenchmarkGraph create(String spec) {
+    int dash = spec.lastIndexOf('-');
+    if (dash == -1) {
+      throw new IllegalArgumentException("Expected kind-size, was " + spec);
+    }
+    String kind = spec.substring(0, dash);
+    int size = Integer.parseInt(spec.substring(dash + 1));
+
+    BenchmarkGraph graph = new BenchmarkGraph();
+    if ("ring".equals(kind)) {
+      graph.addNodes(size);
+      for (int i = 1; i < size; i++) {
+        graph.connect(i - 1, i);
+      }
+      if (size > 2) {
+        graph.connect(size - 1, 0);
+      }
+    } else if ("mesh".equals(kind)) {
+      graph.addNodes(size);
+      for (int i = 0; i < size; i++) {
+        for (int j = i + 1; j < size; j++) {
+          graph.connect(i, j);
+        }
+      }
+    } else if ("star".equals(kind)) {
+      graph.addNodes(size + 1);
+      for (int i = 0; i < size; i++) {
+        graph.connect(size, i);
+      }
+    } else if ("grid".equals(kind)) {
+      int side = Math.max(1, (int)Math.round(Math.sqrt(size)));
+      graph.addNodes(side * side);
+      for (int row = 0; row < side; row++) {
+        for (int col = 0; col < side; col++) {
+          int i = row * side + col;
+          if (col + 1 < side) {
+            graph.connect(i, i + 1);
+          }
+          if (row + 1 < side) {
+            graph.connect(i, i + side);
+          }
+        }
+      }
+    } else if ("random".equals(kind)) {
+      Random random = new Random(size);
+      graph.addNodes(size);
+      for (int i = 1; i < size; i++) {
+        graph.connect(random.nextInt(i), i);
+      }
+      //repeated edges and self loops are skipped rather than retried, so the degree is approximate
+      int extra = Math.max(0, size * RANDOM_DEGREE / 2 - (size - 1));
+      for (int e = 0; e < extra; e++) {
+        int a = random.nextInt(size), b = random.nextInt(size);
+        if (a != b) {
+          graph.connect(Math.min(a, b), Math.max(a, b));
+        }
+      }
+    } else {
+      throw new IllegalArgumentException("Unknown kind of graph " + kind);
+    }
+    return graph;
+  }
+
+  private void addNodes(int count) {
+    for (int i = 0; i < count; i++) {
+      nodes.add(new Node(i));
+    }
+  }
+
+  private void connect(int to, int from) {
+    Edge edge = new Edge(nodes.get(to), nodes.get(from));
+    if (edgeSet.add(edge)) {
+      edges.add(edge);
+    }
+  }
+
+  public List<Node> getNodes() {
+    return nodes;
+  }
+
+  public List<Edge> getEdges() {
+    return edges;
+  }
+
+  /**
+   * Creates a layout of this graph, with every node scattered at random over a square large enough to
+   * give each node about {@link GraphLayout#getNodeDist() nodeDist} of space. The layout's random numbers
+   * are seeded, so the same graph always starts from the same positions.
+   *
+   * @return a new layout holding every node and edge of this graph
+   */
+  public GraphLayout<Node, Edge> createLayout() {
+    GraphLayout<Node, Edge> layout = new GraphLayout<Node, Edge>();
+    layout.setRandom(new Random(0));
+    layout.ensureCapacity(nodes.size(), edges.size());
+    double side = Math.sqrt(nodes.size()) * layout.getNodeDist();
+    Random random = layout.getRandom();
+    for (Node node : nodes) {
+      layout.addNode(node, random.nextDouble() * side, random.nextDouble() * side);
+    }
+    for (Edge edge : edges) {
+      layout.addEdge(edge);
+    }
+    return layout;
+  }
+
+  /**
+   * Creates a layout of this graph as {@link #createLayout()} does, then places it with
+   * {@link PivotMdsPlacement} the way the sample app places the graphs it generates.
+   *
+   * @param placement the placement to run, already configured for the layout engine to be used
+   * @return a new layout holding every node and edge of this graph
+   */
+  public GraphLayout<Node, Edge> createLayout(PivotMdsPlacement placement) {
+    GraphLayout<Node, Edge> layout = createLayout();
+    placement.place(layout);
+    return layout;
+  }
+}
@@ -0,0 +1,130 @@
+package com.sencha.gxt.sample.graph.benchmarks;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sencha.gxt.sample.graph.client.layout.ForceDirectedLayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.ForceDirectedLayoutEngine.RepulsionMode;
+import com.sencha.gxt.sample.graph.client.layout.GraphLayout;
+import com.sencha.gxt.sample.graph.client.layout.PivotMdsPlacement;
+import com.sencha.gxt.sample.graph.client.layout.VerletIntegrator;
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * Measures how long a layout takes to settle, stepping until the kinetic energy and largest move fall
+ * below the default sleep thresholds of the app's GraphComponent, or until {@link #MAX_STEPS} is
+ * reached. The number of steps taken is reported alongside the time, from either random starting
+ * positions or a {@link PivotMdsPlacement}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConvergenceBenchmark {
+  private static final int MAX_STEPS = 10000;
+  private static final double SLEEP_ENERGY = 0.5;
+  private static final double SLEEP_DISPLACEMENT = 0.05;
+
+  @Param({"ring-128", "mesh-32", "star-512", "grid-1024"})
+  public String graph;
+
+  @Param({"random", "mds"})
+  public String placement;
+
+  @Param({"EXACT", "BARNES_HUT"})
+  public RepulsionMode repulsion;
+
+  /**
+   * Steps taken to settle, summed over the invocations in an iteration.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Steps {
+    public long steps;
+    public long unsettled;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      steps = 0;
+      unsettled = 0;
+    }
+  }
+
+  private BenchmarkGraph benchmarkGraph;
+  private ForceDirectedLayoutEngine engine;
+  private PivotMdsPlacement mds;
+  private GraphLayout<Node, Edge> layout;
+
+  @Setup(Level.Trial)
+  public void createGraph() {
+    benchmarkGraph = BenchmarkGraph.create(graph);
+    engine = new ForceDirectedLayoutEngine();
+    engine.setIntegrator(new VerletIntegrator());
+    engine.setGridGravity(0.001);
+    engine.setRepulsionMode(repulsion);
+    mds = new PivotMdsPlacement();
+    mds.setForceModel(engine.getForceModel());
+  }
+
+  @Setup(Level.Invocation)
+  public void placeGraph() {
+    if ("mds".equals(placement)) {
+      layout = benchmarkGraph.createLayout(mds);
+    } else {
+      layout = benchmarkGraph.createLayout();
+    }
+  }
+
+  @Benchmark
+  public GraphLayout<Node, Edge> settle(Steps counters) {
+    int step = 0;
+    while (step < MAX_STEPS) {
+      engine.step(layout);
+      step++;
+      if (layout.getKineticEnergy() < SLEEP_ENERGY && layout.getMaxDisplacement() < SLEEP_DISPLACEMENT) {
+        break;
+      }
+    }
+    counters.steps += step;
+    if (step == MAX_STEPS) {
+      counters.unsettled++;
+    }
+    return layout;
+  }
+}
@@ -0,0 +1,92 @@
+package com.sencha.gxt.sample.graph.benchmarks;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sencha.gxt.sample.graph.client.layout.ForceDirectedLayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.ForceDirectedLayoutEngine.RepulsionMode;
+import com.sencha.gxt.sample.graph.client.layout.GraphLayout;
+import com.sencha.gxt.sample.graph.client.layout.PivotMdsPlacement;
+import com.sencha.gxt.sample.graph.client.layout.VerletIntegrator;
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * Measures a single tick of {@link ForceDirectedLayoutEngine}, configured as the sample app configures
+ * it, on a graph placed the way the app places generated graphs. The graph is placed again at the start
+ * of each iteration, so every iteration measures ticks from the same starting point.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayoutTickBenchmark {
+  @Param({"ring-128", "mesh-32", "star-512", "ring-16384", "grid-16384", "random-16384"})
+  public String graph;
+
+  @Param({"EXACT", "BARNES_HUT", "GRID"})
+  public RepulsionMode repulsion;
+
+  private BenchmarkGraph benchmarkGraph;
+  private ForceDirectedLayoutEngine engine;
+  private PivotMdsPlacement placement;
+  private GraphLayout<Node, Edge> layout;
+
+  @Setup(Level.Trial)
+  public void createGraph() {
+    benchmarkGraph = BenchmarkGraph.create(graph);
+    engine = new ForceDirectedLayoutEngine();
+    engine.setIntegrator(new VerletIntegrator());
+    engine.setGridGravity(0.001);
+    engine.setRepulsionMode(repulsion);
+    placement = new PivotMdsPlacement();
+    placement.setForceModel(engine.getForceModel());
+  }
+
+  @Setup(Level.Iteration)
+  public void placeGraph() {
+    layout = benchmarkGraph.createLayout(placement);
+    //the first step sizes the engine's scratch space for this layout, keep that out of the measurement
+    engine.step(layout);
+  }
+
+  @Benchmark
+  public double tick() {
+    engine.step(layout);
+    return layout.getKineticEnergy();
+  }
+}
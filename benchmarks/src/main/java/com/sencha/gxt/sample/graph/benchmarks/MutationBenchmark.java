@@ -0,0 +1,168 @@
+package com.sencha.gxt.sample.graph.benchmarks;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sencha.gxt.sample.graph.client.layout.GraphLayout;
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * Measures building and tearing down a {@link GraphLayout} one change at a time: adding every node,
+ * adding every edge once the nodes are in place, and removing every node in a random order along with
+ * its edges. Each invocation works through the whole graph, and the number of nodes or edges handled is
+ * reported as a rate alongside the time per graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MutationBenchmark {
+  @Param({"mesh-128", "star-16384", "ring-16384", "grid-16384", "random-16384"})
+  public String graph;
+
+  /**
+   * Nodes and edges handled per second.
+   */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Changes {
+    public long nodes;
+    public long edges;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      nodes = 0;
+      edges = 0;
+    }
+  }
+
+  /**
+   * A layout holding every node of the graph, but none of its edges.
+   */
+  @State(Scope.Thread)
+  public static class NodesOnly {
+    GraphLayout<Node, Edge> layout;
+
+    @Setup(Level.Invocation)
+    public void addNodes(MutationBenchmark benchmark) {
+      layout = new GraphLayout<Node, Edge>();
+      benchmark.addNodes(layout);
+    }
+  }
+
+  /**
+   * A layout holding the whole graph.
+   */
+  @State(Scope.Thread)
+  public static class Complete {
+    GraphLayout<Node, Edge> layout;
+
+    @Setup(Level.Invocation)
+    public void addGraph(MutationBenchmark benchmark) {
+      layout = new GraphLayout<Node, Edge>();
+      benchmark.addNodes(layout);
+      benchmark.addEdges(layout);
+    }
+  }
+
+  private BenchmarkGraph benchmarkGraph;
+  private double[] x;
+  private double[] y;
+  private List<Node> removalOrder;
+
+  @Setup(Level.Trial)
+  public void createGraph() {
+    benchmarkGraph = BenchmarkGraph.create(graph);
+    int count = benchmarkGraph.getNodes().size();
+    Random random = new Random(0);
+    double side = Math.sqrt(count) * 50;
+    x = new double[count];
+    y = new double[count];
+    for (int i = 0; i < count; i++) {
+      x[i] = random.nextDouble() * side;
+      y[i] = random.nextDouble() * side;
+    }
+    removalOrder = new ArrayList<Node>(benchmarkGraph.getNodes());
+    Collections.shuffle(removalOrder, random);
+  }
+
+  void addNodes(GraphLayout<Node, Edge> layout) {
+    List<Node> nodes = benchmarkGraph.getNodes();
+    for (int i = 0; i < nodes.size(); i++) {
+      layout.addNode(nodes.get(i), x[i], y[i]);
+    }
+  }
+
+  void addEdges(GraphLayout<Node, Edge> layout) {
+    List<Edge> edges = benchmarkGraph.getEdges();
+    for (int i = 0; i < edges.size(); i++) {
+      layout.addEdge(edges.get(i));
+    }
+  }
+
+  @Benchmark
+  public GraphLayout<Node, Edge> addNode(Changes changes) {
+    GraphLayout<Node, Edge> layout = new GraphLayout<Node, Edge>();
+    addNodes(layout);
+    changes.nodes += layout.getNodeCount();
+    return layout;
+  }
+
+  @Benchmark
+  public GraphLayout<Node, Edge> addEdge(NodesOnly state, Changes changes) {
+    addEdges(state.layout);
+    changes.edges += state.layout.getEdgeCount();
+    return state.layout;
+  }
+
+  @Benchmark
+  public GraphLayout<Node, Edge> removeNode(Complete state, Changes changes) {
+    GraphLayout<Node, Edge> layout = state.layout;
+    changes.edges += layout.getEdgeCount();
+    for (int i = 0; i < removalOrder.size(); i++) {
+      layout.removeNode(removalOrder.get(i));
+    }
+    changes.nodes += removalOrder.size();
+    return layout;
+  }
+}
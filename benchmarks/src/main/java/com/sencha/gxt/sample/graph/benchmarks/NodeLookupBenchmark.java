@@ -0,0 +1,153 @@
+package com.sencha.gxt.sample.graph.benchmarks;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sencha.gxt.sample.graph.client.layout.GraphLayout;
+import com.sencha.gxt.sample.graph.client.layout.PivotMdsPlacement;
+import com.sencha.gxt.sample.graph.client.layout.UniformGrid;
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * Measures the lookups GraphComponent makes against the {@link UniformGrid} it keeps of rendered node
+ * positions: getNodeAt, run for every mouse event while dragging, getNearestNode, and the update of the
+ * grid in each frame's render loop. getNodeAt goes on to test the bounding boxes of the sprites drawn for
+ * each nearby node, which need GWT, so here each node is the box around the app's 30 pixel radius
+ * circle. Half the queries fall on a node and half at random points within the graph's bounds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeLookupBenchmark {
+  private static final int QUERY_COUNT = 1024;
+  private static final double NODE_RADIUS = 30;
+  //how far the box around a node reaches from its center, as GraphComponent measures it
+  private static final double NODE_EXTENT = Math.sqrt(2) * NODE_RADIUS;
+
+  @Param({"ring-128", "mesh-32", "star-512", "ring-16384", "grid-16384", "random-16384"})
+  public String graph;
+
+  private GraphLayout<Node, Edge> layout;
+  private final UniformGrid grid = new UniformGrid();
+  private final double[] queryX = new double[QUERY_COUNT];
+  private final double[] queryY = new double[QUERY_COUNT];
+  private int next;
+  private double jitter = 0.5;
+
+  @Setup(Level.Trial)
+  public void placeGraph() {
+    layout = BenchmarkGraph.create(graph).createLayout(new PivotMdsPlacement());
+    double[] x = layout.getX(), y = layout.getY();
+    int count = layout.getNodeCount();
+    double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; i++) {
+      minX = Math.min(minX, x[i]);
+      minY = Math.min(minY, y[i]);
+      maxX = Math.max(maxX, x[i]);
+      maxY = Math.max(maxY, y[i]);
+    }
+    Random random = new Random(0);
+    for (int q = 0; q < QUERY_COUNT; q++) {
+      if (q % 2 == 0) {
+        int i = random.nextInt(count);
+        queryX[q] = x[i] + (random.nextDouble() - 0.5) * NODE_RADIUS;
+        queryY[q] = y[i] + (random.nextDouble() - 0.5) * NODE_RADIUS;
+      } else {
+        queryX[q] = minX + random.nextDouble() * (maxX - minX);
+        queryY[q] = minY + random.nextDouble() * (maxY - minY);
+      }
+    }
+    //the same cell size GraphComponent builds its grid with
+    grid.build(x, y, null, count, Math.max(1, layout.getNodeDist()));
+  }
+
+  /**
+   * Finds the node drawn nearest the point among those whose box contains it, as
+   * GraphComponent.getNodeAt does.
+   */
+  @Benchmark
+  public Node getNodeAt() {
+    int q = next;
+    next = (q + 1) % QUERY_COUNT;
+    double px = queryX[q], py = queryY[q];
+    List<Node> nodes = layout.getNodes();
+    double[] x = layout.getX(), y = layout.getY();
+    Node nearest = null;
+    double best = Double.POSITIVE_INFINITY;
+    int found = grid.findWithin(px, py, NODE_EXTENT);
+    for (int k = 0; k < found; k++) {
+      int i = grid.getFound(k);
+      double dx = px - x[i], dy = py - y[i];
+      if (dx * dx + dy * dy < best && Math.abs(dx) <= NODE_RADIUS && Math.abs(dy) <= NODE_RADIUS) {
+        best = dx * dx + dy * dy;
+        nearest = nodes.get(i);
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * Finds the nearest node within a node's radius of the point, as GraphComponent.getNearestNode does.
+   */
+  @Benchmark
+  public int getNearestNode() {
+    int q = next;
+    next = (q + 1) % QUERY_COUNT;
+    return grid.findNearest(queryX[q], queryY[q], NODE_RADIUS);
+  }
+
+  /**
+   * Moves every node in the grid by half a pixel, back and forth, as the render loop does for each node
+   * that moved in a frame where the whole graph is moving.
+   */
+  @Benchmark
+  public void updateGrid() {
+    double[] x = layout.getX(), y = layout.getY();
+    int count = layout.getNodeCount();
+    for (int i = 0; i < count; i++) {
+      x[i] += jitter;
+      y[i] += jitter;
+      grid.move(i, x[i], y[i]);
+    }
+    jitter = -jitter;
+  }
+}
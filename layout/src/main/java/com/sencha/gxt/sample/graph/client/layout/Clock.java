@@ -0,0 +1,34 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Source of the current time for {@link IncrementalLayoutEngine}s, so that the layout can be budgeted
+ * without depending on any particular platform's timer.
+ */
+public interface Clock {
+  /**
+   * Gets the current time in milliseconds, relative to any fixed point.
+   *
+   * @return
+   */
+  double now();
+}
@@ -0,0 +1,440 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * Lays out each connected component of a graph on its own, then packs the components side by side.
+ * Nodes in different components never interact, so there is no point computing the repulsion between
+ * them, and left to a single simulation small components tend to be pushed away from the rest of the
+ * graph without bound.
+ * <p>
+ * Each component is copied into a {@link GraphLayout} of its own with its own {@link LayoutEngine},
+ * created by the {@link EngineFactory}, and positions are copied back after each step. Components are
+ * then packed onto shelves, largest first, no wider than the bounds given to
+ * {@link #setBounds(double, double)}. Components holding a locked node are left where they are, so that
+ * a node being dragged or a change being settled with {@link GraphLayout#focus} doesn't move, and the
+ * rest are packed around them.
+ * <p>
+ * The components are found again whenever nodes or edges are added or removed, which also creates new
+ * engines for them, so engines that carry state from one step to the next lose it at that point.
+ */
+public class ComponentLayoutEngine implements IncrementalLayoutEngine {
+  /**
+   * Creates the engine used to lay out each component.
+   */
+  public interface EngineFactory {
+    LayoutEngine create();
+  }
+
+  /**
+   * A single component, with the layout and engine it is run with, and the offset from its layout's
+   * coordinates to those of the graph.
+   */
+  protected static final class Part {
+    private final GraphLayout<Node, Edge> layout = new GraphLayout<Node, Edge>();
+    private final LayoutEngine engine;
+    private final int[] members;
+    private double offsetX;
+    private double offsetY;
+    private double kineticEnergy;
+    private double maxDisplacement;
+
+    private Part(LayoutEngine engine, int[] members) {
+      this.engine = engine;
+      this.members = members;
+    }
+  }
+
+  private final EngineFactory factory;
+  private final ConnectedComponents components = new ConnectedComponents();
+  private final List<Part> parts = new ArrayList<Part>();
+  private final List<Part> packOrder = new ArrayList<Part>();
+
+  private GraphLayout<?, ?> lastLayout;
+  private int lastModCount;
+  //the next part to step, when a step is spread over several calls to stepUntil
+  private int cursor;
+
+  private double width;
+  private double height;
+
+  //bounds of each component in pack order as x, y, width and height, and whether it holds a locked node
+  private double[] bounds = new double[0];
+  private boolean[] pinned = new boolean[0];
+
+  /**
+   * Creates an engine which steps every component with the given engine in turn. Only suitable for
+   * engines that keep no state for a particular layout between steps, such as a
+   * {@link ForceDirectedLayoutEngine} with an {@link EulerIntegrator} or {@link VerletIntegrator}.
+   *
+   * @param engine the engine to lay out each component with
+   */
+  public ComponentLayoutEngine(final LayoutEngine engine) {
+    this(new EngineFactory() {
+      @Override
+      public LayoutEngine create() {
+        return engine;
+      }
+    });
+  }
+
+  /**
+   * Creates an engine which lays out each component with an engine of its own from the given factory.
+   *
+   * @param factory creates the engine for each component
+   */
+  public ComponentLayoutEngine(EngineFactory factory) {
+    this.factory = factory;
+  }
+
+  /**
+   * Sets the area to pack the components into. Components are placed in rows no wider than the given
+   * width, a row only holding a single component if that component is wider still. If the width is
+   * zero, rows are sized to make the packed components roughly square.
+   *
+   * @param width the width to pack into, or zero for no limit
+   * @param height the height available, used to decide when to pack into a narrower square instead
+   */
+  public void setBounds(double width, double height) {
+    this.width = width;
+    this.height = height;
+  }
+
+  public double getWidth() {
+    return width;
+  }
+
+  public double getHeight() {
+    return height;
+  }
+
+  /**
+   * Forces the components to be found again and new engines created for them on the next step, after
+   * changing how the factory creates engines.
+   */
+  public void invalidate() {
+    lastLayout = null;
+  }
+
+  /**
+   * Gets the number of components found in the graph last stepped.
+   *
+   * @return
+   */
+  public int getComponentCount() {
+    return parts.size();
+  }
+
+  @Override
+  public void step(GraphLayout<?, ?> layout) {
+    prepare(layout);
+    cursor = 0;
+    stepParts(layout, parts);
+    finishStep(layout);
+  }
+
+  /**
+   * Steps the components in turn until the deadline passes. A component being laid out by an
+   * {@link IncrementalLayoutEngine} may itself have its step split across calls.
+   */
+  @Override
+  public boolean stepUntil(GraphLayout<?, ?> layout, Clock clock, double deadline) {
+    prepare(layout);
+    while (cursor < parts.size()) {
+      if (!stepPart(layout, parts.get(cursor), clock, deadline)) {
+        return false;
+      }
+      cursor++;
+      if (cursor < parts.size() && clock.now() >= deadline) {
+        return false;
+      }
+    }
+    cursor = 0;
+    finishStep(layout);
+    return true;
+  }
+
+  /**
+   * Runs a step over each of the given components. Subclasses may run them concurrently, as each
+   * component only touches the state of its own nodes.
+   *
+   * @param layout the graph being laid out
+   * @param parts the components to step
+   */
+  protected void stepParts(GraphLayout<?, ?> layout, List<Part> parts) {
+    for (int i = 0; i < parts.size(); i++) {
+      stepPart(layout, parts.get(i));
+    }
+  }
+
+  /**
+   * Runs a whole step over a single component, copying its nodes' state in from the graph beforehand
+   * and back out afterward.
+   *
+   * @param layout the graph being laid out
+   * @param part the component to step
+   */
+  protected final void stepPart(GraphLayout<?, ?> layout, Part part) {
+    stepPart(layout, part, null, 0);
+  }
+
+  /**
+   * Steps a component, until the deadline if a clock is given and the engine can split its steps.
+   *
+   * @return true if the step was completed
+   */
+  private boolean stepPart(GraphLayout<?, ?> layout, Part part, Clock clock, double deadline) {
+    GraphLayout<Node, Edge> sub = part.layout;
+    int[] members = part.members;
+    double[] x = layout.getX(), y = layout.getY();
+    double[] vx = layout.getVelocityX(), vy = layout.getVelocityY();
+    double[] previousFx = layout.getPreviousForceX(), previousFy = layout.getPreviousForceY();
+    boolean[] locked = layout.getLockedFlags();
+    double[] subX = sub.getX(), subY = sub.getY();
+    double[] subVx = sub.getVelocityX(), subVy = sub.getVelocityY();
+    double[] subPreviousFx = sub.getPreviousForceX(), subPreviousFy = sub.getPreviousForceY();
+
+    //pick up anything changed from outside since the last step, such as a node being dragged
+    boolean moving = false;
+    for (int j = 0; j < members.length; j++) {
+      int i = members[j];
+      subX[j] = x[i] - part.offsetX;
+      subY[j] = y[i] - part.offsetY;
+      subVx[j] = vx[i];
+      subVy[j] = vy[i];
+      subPreviousFx[j] = previousFx[i];
+      subPreviousFy[j] = previousFy[i];
+      if (sub.getLockedFlags()[j] != locked[i]) {
+        sub.setLocked(sub.getNodes().get(j), locked[i]);
+      }
+      moving |= !locked[i];
+    }
+    if (!moving) {
+      part.kineticEnergy = 0;
+      part.maxDisplacement = 0;
+      return true;
+    }
+    sub.setNodeDist(layout.getNodeDist());
+    sub.setProfiler(layout.getProfiler());
+
+    boolean finished = true;
+    if (clock != null && part.engine instanceof IncrementalLayoutEngine) {
+      finished = ((IncrementalLayoutEngine) part.engine).stepUntil(sub, clock, deadline);
+    } else {
+      part.engine.step(sub);
+    }
+
+    for (int j = 0; j < members.length; j++) {
+      int i = members[j];
+      x[i] = subX[j] + part.offsetX;
+      y[i] = subY[j] + part.offsetY;
+      vx[i] = subVx[j];
+      vy[i] = subVy[j];
+      previousFx[i] = subPreviousFx[j];
+      previousFy[i] = subPreviousFy[j];
+    }
+    if (finished) {
+      part.kineticEnergy = sub.getKineticEnergy();
+      part.maxDisplacement = sub.getMaxDisplacement();
+    }
+    return finished;
+  }
+
+  private void finishStep(GraphLayout<?, ?> layout) {
+    pack(layout);
+    double kineticEnergy = 0, maxDisplacement = 0;
+    for (int p = 0; p < parts.size(); p++) {
+      Part part = parts.get(p);
+      kineticEnergy += part.kineticEnergy;
+      maxDisplacement = Math.max(maxDisplacement, part.maxDisplacement);
+    }
+    layout.setStepStatistics(kineticEnergy, maxDisplacement);
+  }
+
+  /**
+   * Finds the components of the graph again if its shape has changed, and builds a layout for each.
+   */
+  private void prepare(GraphLayout<?, ?> layout) {
+    if (layout == lastLayout && layout.getModCount() == lastModCount) {
+      return;
+    }
+    lastLayout = layout;
+    lastModCount = layout.getModCount();
+    cursor = 0;
+    parts.clear();
+
+    int count = layout.getNodeCount();
+    int edgeCount = layout.getEdgeCount();
+    int[] edgeTo = layout.getEdgeTo(), edgeFrom = layout.getEdgeFrom();
+    double[] x = layout.getX(), y = layout.getY();
+    components.compute(count, edgeTo, edgeFrom, edgeCount);
+
+    int[] members = components.getMembers();
+    Node[] proxies = new Node[count];
+    for (int c = 0; c < components.getCount(); c++) {
+      int[] partMembers = new int[components.getSize(c)];
+      System.arraycopy(members, components.getStart(c), partMembers, 0, partMembers.length);
+      Part part = new Part(factory.create(), partMembers);
+      for (int j = 0; j < partMembers.length; j++) {
+        int i = partMembers[j];
+        //ids only need to be unique within the component's layout
+        proxies[i] = new Node(j);
+        part.layout.addNode(proxies[i], x[i], y[i]);
+      }
+      parts.add(part);
+    }
+    for (int e = 0; e < edgeCount; e++) {
+      Part part = parts.get(components.getComponent(edgeTo[e]));
+      part.layout.addEdge(new Edge(proxies[edgeTo[e]], proxies[edgeFrom[e]]));
+    }
+    for (int p = 0; p < parts.size(); p++) {
+      //nothing to warm start, but lets the layout forget the nodes it was just given
+      parts.get(p).layout.placeNewNodes(0);
+    }
+
+    //pack the biggest components first, keeping to the order found if sizes are equal
+    packOrder.clear();
+    packOrder.addAll(parts);
+    Collections.sort(packOrder, new Comparator<Part>() {
+      @Override
+      public int compare(Part o1, Part o2) {
+        return o2.members.length - o1.members.length;
+      }
+    });
+  }
+
+  /**
+   * Places the components onto shelves, left to right then top to bottom, each an edge length apart.
+   * Components holding a locked node keep their current position, and the others are kept an edge length
+   * clear of them.
+   */
+  protected void pack(GraphLayout<?, ?> layout) {
+    double gap = layout.getNodeDist();
+    boolean[] locked = layout.getLockedFlags();
+    if (bounds.length < 4 * packOrder.size()) {
+      bounds = new double[4 * packOrder.size()];
+      pinned = new boolean[packOrder.size()];
+    }
+    double widest = 0, area = 0;
+    for (int p = 0; p < packOrder.size(); p++) {
+      Part part = packOrder.get(p);
+      pinned[p] = isPinned(part, locked);
+      double[] subX = part.layout.getX(), subY = part.layout.getY();
+      double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+      for (int j = 0; j < part.members.length; j++) {
+        minX = Math.min(minX, subX[j]);
+        minY = Math.min(minY, subY[j]);
+        maxX = Math.max(maxX, subX[j]);
+        maxY = Math.max(maxY, subY[j]);
+      }
+      bounds[4 * p] = minX;
+      bounds[4 * p + 1] = minY;
+      bounds[4 * p + 2] = maxX - minX;
+      bounds[4 * p + 3] = maxY - minY;
+      widest = Math.max(widest, maxX - minX);
+      area += (maxX - minX + gap) * (maxY - minY + gap);
+    }
+
+    //fill the width if the components fit in the bounds that way, otherwise keep them roughly square
+    double rowWidth = width;
+    if (rowWidth <= 0 || (height > 0 && area / rowWidth > height)) {
+      rowWidth = Math.max(Math.sqrt(area), widest) + 2 * gap;
+    }
+
+    double cursorX = gap, cursorY = gap, shelfHeight = 0;
+    for (int p = 0; p < packOrder.size(); p++) {
+      Part part = packOrder.get(p);
+      if (pinned[p]) {
+        continue;
+      }
+      double w = bounds[4 * p + 2], h = bounds[4 * p + 3];
+      int obstacle;
+      do {
+        if (cursorX > gap && cursorX + w + gap > rowWidth) {
+          //start a new shelf under the tallest component on this one
+          cursorX = gap;
+          cursorY += shelfHeight + gap;
+          shelfHeight = 0;
+        }
+        obstacle = findPinnedOverlap(cursorX, cursorY, w, h, gap);
+        if (obstacle >= 0) {
+          //skip past the pinned component, which then takes up room on this shelf
+          Part pinnedPart = packOrder.get(obstacle);
+          cursorX = bounds[4 * obstacle] + pinnedPart.offsetX + bounds[4 * obstacle + 2] + gap;
+          shelfHeight = Math.max(shelfHeight,
+              bounds[4 * obstacle + 1] + pinnedPart.offsetY + bounds[4 * obstacle + 3] - cursorY);
+        }
+      } while (obstacle >= 0);
+      part.offsetX = cursorX - bounds[4 * p];
+      part.offsetY = cursorY - bounds[4 * p + 1];
+      cursorX += w + gap;
+      shelfHeight = Math.max(shelfHeight, h);
+    }
+
+    double[] x = layout.getX(), y = layout.getY();
+    for (int p = 0; p < parts.size(); p++) {
+      Part part = parts.get(p);
+      double[] subX = part.layout.getX(), subY = part.layout.getY();
+      for (int j = 0; j < part.members.length; j++) {
+        x[part.members[j]] = subX[j] + part.offsetX;
+        y[part.members[j]] = subY[j] + part.offsetY;
+      }
+    }
+  }
+
+  /**
+   * Finds a pinned component closer than the gap to the given area, in the graph's coordinates.
+   *
+   * @return the component's index in pack order, or -1 if there is none
+   */
+  private int findPinnedOverlap(double x, double y, double w, double h, double gap) {
+    for (int p = 0; p < packOrder.size(); p++) {
+      if (!pinned[p]) {
+        continue;
+      }
+      Part part = packOrder.get(p);
+      double minX = bounds[4 * p] + part.offsetX, minY = bounds[4 * p + 1] + part.offsetY;
+      if (x < minX + bounds[4 * p + 2] + gap && x + w + gap > minX
+          && y < minY + bounds[4 * p + 3] + gap && y + h + gap > minY) {
+        return p;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isPinned(Part part, boolean[] locked) {
+    for (int j = 0; j < part.members.length; j++) {
+      if (locked[part.members[j]]) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,148 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Splits the nodes of a graph into its connected components, using a union-find over the edges. Nodes
+ * and components are identified by index: components are numbered in order of their lowest node index,
+ * and the members of each are listed in increasing order, so the result is stable as long as the
+ * graph is.
+ */
+public class ConnectedComponents {
+  private int count;
+  private int[] parent = new int[0];
+  private int[] componentOf = new int[0];
+  private int[] start = new int[1];
+  private int[] members = new int[0];
+
+  /**
+   * Finds the components of the graph with the given nodes and edges.
+   *
+   * @param nodeCount the number of nodes
+   * @param edgeTo the index of the 'to' node of each edge
+   * @param edgeFrom the index of the 'from' node of each edge
+   * @param edgeCount the number of edges
+   */
+  public void compute(int nodeCount, int[] edgeTo, int[] edgeFrom, int edgeCount) {
+    if (parent.length < nodeCount) {
+      parent = new int[nodeCount];
+      componentOf = new int[nodeCount];
+      members = new int[nodeCount];
+    }
+    for (int i = 0; i < nodeCount; i++) {
+      parent[i] = i;
+    }
+    for (int e = 0; e < edgeCount; e++) {
+      int a = find(edgeTo[e]), b = find(edgeFrom[e]);
+      //keep the lower index as the root, so roots are met in order of their lowest member
+      if (a < b) {
+        parent[b] = a;
+      } else if (b < a) {
+        parent[a] = b;
+      }
+    }
+
+    //number the components, and count the members of each
+    count = 0;
+    for (int i = 0; i < nodeCount; i++) {
+      int root = find(i);
+      componentOf[i] = root == i ? count++ : componentOf[root];
+    }
+    if (start.length < count + 1) {
+      start = new int[count + 1];
+    }
+    for (int c = 0; c <= count; c++) {
+      start[c] = 0;
+    }
+    for (int i = 0; i < nodeCount; i++) {
+      start[componentOf[i] + 1]++;
+    }
+    for (int c = 0; c < count; c++) {
+      start[c + 1] += start[c];
+    }
+
+    //list the members of each component, reusing parent as a fill cursor
+    for (int c = 0; c < count; c++) {
+      parent[c] = start[c];
+    }
+    for (int i = 0; i < nodeCount; i++) {
+      members[parent[componentOf[i]]++] = i;
+    }
+  }
+
+  private int find(int node) {
+    while (parent[node] != node) {
+      //path halving, point each visited node at its grandparent
+      parent[node] = parent[parent[node]];
+      node = parent[node];
+    }
+    return node;
+  }
+
+  /**
+   * Gets the number of components found by the last call to {@link #compute(int, int[], int[], int)}.
+   *
+   * @return
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Gets the component containing the given node.
+   *
+   * @param node the index of the node
+   * @return
+   */
+  public int getComponent(int node) {
+    return componentOf[node];
+  }
+
+  /**
+   * Gets the number of nodes in the given component.
+   *
+   * @param component
+   * @return
+   */
+  public int getSize(int component) {
+    return start[component + 1] - start[component];
+  }
+
+  /**
+   * Gets the offset in {@link #getMembers()} at which the members of the given component start.
+   *
+   * @param component
+   * @return
+   */
+  public int getStart(int component) {
+    return start[component];
+  }
+
+  /**
+   * Gets the node indexes of every component, grouped by component. The members of component c run
+   * from {@link #getStart(int)} for c for {@link #getSize(int)} entries.
+   *
+   * @return
+   */
+  public int[] getMembers() {
+    return members;
+  }
+}
@@ -0,0 +1,49 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * The original model of {@link ForceDirectedLayoutEngine}: nodes repel each other by the inverse square
+ * of their distance, and edges pull with the square of how far they are stretched past their ideal
+ * length. Every node has unit mass, and there is no gravity.
+ */
+public class DefaultForceModel implements ForceModel {
+  @Override
+  public double mass(int degree) {
+    return 1;
+  }
+
+  @Override
+  public double repulsion(double distance, double mass1, double mass2, double nodeDist) {
+    return ForceDirectedLayoutEngine.REPULSE_CONST * mass1 * mass2 / (distance * distance);
+  }
+
+  @Override
+  public double attraction(double distance, double nodeDist) {
+    double force = ForceDirectedLayoutEngine.ATTRACT_CONST * Math.max(distance - nodeDist, 0);
+    return force * force;
+  }
+
+  @Override
+  public double gravity(double distance, double mass, double nodeDist) {
+    return 0;
+  }
+}
@@ -0,0 +1,82 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Explicit Euler integration with a constant time step of one and a fixed amount of friction. Cheap and
+ * simple, but springs tend to overshoot and oscillate for a long time before settling.
+ */
+public class EulerIntegrator implements Integrator {
+  private final double friction;
+
+  /**
+   * Creates an integrator using {@link ForceDirectedLayoutEngine#FRICTION_CONST}.
+   */
+  public EulerIntegrator() {
+    this(ForceDirectedLayoutEngine.FRICTION_CONST);
+  }
+
+  /**
+   * Creates an integrator removing the given fraction of each node's velocity on every step.
+   *
+   * @param friction fraction of velocity lost per step, from 0 to 1
+   */
+  public EulerIntegrator(double friction) {
+    assert friction >= 0 && friction <= 1;
+    this.friction = friction;
+  }
+
+  public double getFriction() {
+    return friction;
+  }
+
+  @Override
+  public void prepare(GraphLayout<?, ?> layout) {
+    //nothing global to compute
+  }
+
+  @Override
+  public void integrate(GraphLayout<?, ?> layout, int start, int end, double[] statistics) {
+    double[] x = layout.getX(), y = layout.getY();
+    double[] vx = layout.getVelocityX(), vy = layout.getVelocityY();
+    double[] fx = layout.getForceX(), fy = layout.getForceY();
+    boolean[] locked = layout.getLockedFlags();
+    for (int i = start; i < end; i++) {
+      if (locked[i]) {//if locked, don't apply velocity to position
+        continue;
+      }
+      vx[i] += fx[i];
+      vy[i] += fy[i];
+
+      //apply some friction
+      vx[i] *= (1 - friction);
+      vy[i] *= (1 - friction);
+
+      //update position
+      x[i] += vx[i];
+      y[i] += vy[i];
+
+      double speedSquared = vx[i] * vx[i] + vy[i] * vy[i];
+      statistics[0] += speedSquared / 2;
+      statistics[1] = Math.max(statistics[1], Math.sqrt(speedSquared));
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * The ForceAtlas2 model of Jacomy et al. Each node's mass is its degree plus one, and repulsion is
+ * proportional to both masses, so hubs push each other apart hard while leaves can sit close to their
+ * hub. Edges attract linearly with length, and a constant gravity scaled by mass keeps disconnected
+ * parts of the graph together. Suited to scale-free graphs, especially with an {@link AdaptiveIntegrator}.
+ */
+public class ForceAtlas2ForceModel implements ForceModel {
+  /**
+   * Scales every force down to steps the integrators handle well, without changing the shape of the
+   * layout they settle on.
+   */
+  private static final double SCALE = 0.004;
+
+  private final double gravity;
+
+  /**
+   * Creates a model with a gravity of one.
+   */
+  public ForceAtlas2ForceModel() {
+    this(1);
+  }
+
+  /**
+   * Creates a model with the given strength of gravity, relative to the pull of an edge of ideal length
+   * on a node of unit mass.
+   *
+   * @param gravity the strength of gravity, zero for none
+   */
+  public ForceAtlas2ForceModel(double gravity) {
+    assert gravity >= 0;
+    this.gravity = gravity;
+  }
+
+  public double getGravity() {
+    return gravity;
+  }
+
+  @Override
+  public double mass(int degree) {
+    return degree + 1;
+  }
+
+  @Override
+  public double repulsion(double distance, double mass1, double mass2, double nodeDist) {
+    //two leaves joined by an edge come to rest at the ideal length
+    return SCALE * nodeDist * nodeDist / 4 * mass1 * mass2 / distance;
+  }
+
+  @Override
+  public double attraction(double distance, double nodeDist) {
+    return SCALE * distance;
+  }
+
+  @Override
+  public double gravity(double distance, double mass, double nodeDist) {
+    return SCALE * nodeDist * gravity * mass;
+  }
+}
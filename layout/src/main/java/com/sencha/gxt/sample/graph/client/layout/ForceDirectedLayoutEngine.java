@@ -0,0 +1,562 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sencha.gxt.sample.graph.client.layout.LayoutProfiler.Phase;
+
+/**
+ * Simple force-directed layout: every node pushes away every other node, edges pull their nodes
+ * together like springs, and an {@link Integrator} turns the resulting forces into movement, bleeding
+ * off speed so the graph settles. The strength of each force is given by a {@link ForceModel}. A step
+ * can be spread over several calls to {@link #stepUntil(GraphLayout, Clock, double)}, computing the
+ * repulsion on a few nodes at a time.
+ */
+public class ForceDirectedLayoutEngine implements IncrementalLayoutEngine {
+  private static final Logger log = Logger.getLogger(ForceDirectedLayoutEngine.class.getName());
+
+  /**
+   * Strategies for computing the repulsion between each pair of nodes.
+   */
+  public enum RepulsionMode {
+    /**
+     * Computes the force between every pair of nodes, O(n^2) per step.
+     */
+    EXACT,
+    /**
+     * Approximates distant groups of nodes by their center of mass using a quadtree rebuilt on each
+     * step, O(n log n) per step. Accuracy is controlled by {@link ForceDirectedLayoutEngine#setTheta(double)}.
+     */
+    BARNES_HUT,
+    /**
+     * Ignores nodes further apart than a cutoff radius, finding nearby nodes with a {@link UniformGrid}
+     * rebuilt on each step, close to O(n) per step for sparse graphs. The radius is set with
+     * {@link ForceDirectedLayoutEngine#setCutoff(double)}, and as distant parts of the graph no longer
+     * push each other away, {@link ForceDirectedLayoutEngine#setGridGravity(double)} can be used to
+     * keep them from wandering apart.
+     */
+    GRID
+  }
+
+  public static final double REPULSE_CONST = 500.0;
+  public static final double ATTRACT_CONST = 0.002;
+  public static final double FRICTION_CONST = 0.03;
+  public static final double MIN_DISTANCE = 10;
+
+  /**
+   * Nodes to compute repulsion for between checks of the clock, when running part of a step.
+   */
+  private static final int CHUNK_SIZE = 32;
+
+  private RepulsionMode repulsionMode = RepulsionMode.EXACT;
+  private double theta = 0.8;
+  private Integrator integrator = new EulerIntegrator();
+  private ForceModel forceModel = new DefaultForceModel();
+  private final QuadTree quadTree = new QuadTree();
+  private double cutoff = 3;
+  private double gridGravity = 0;
+  private final UniformGrid grid = new UniformGrid();
+
+  //mass of each node, rebuilt when the shape of the graph or the model changes
+  private GraphLayout<?, ?> massLayout;
+  private int massModCount;
+  private double[] masses = new double[0];
+
+  //the point gravity pulls toward on this step
+  private double centerX;
+  private double centerY;
+
+  //progress through a step being spread over several calls to stepUntil
+  private GraphLayout<?, ?> partialLayout;
+  private int partialModCount;
+  private int partialCursor;
+  private RepulsionMode stepMode;
+
+  private final double[] bearing = new double[2];
+  private final double[] statistics = new double[2];
+
+  /**
+   * Sets the strategy used to compute repulsion between nodes. Defaults to {@link RepulsionMode#EXACT}.
+   *
+   * @param repulsionMode the strategy to use on the next step
+   */
+  public void setRepulsionMode(RepulsionMode repulsionMode) {
+    assert repulsionMode != null;
+    this.repulsionMode = repulsionMode;
+  }
+
+  public RepulsionMode getRepulsionMode() {
+    return repulsionMode;
+  }
+
+  /**
+   * Sets the Barnes-Hut accuracy parameter, the ratio of a quadtree cell's width to its distance from a
+   * node below which the cell is treated as a single body. Zero is equivalent to the exact computation,
+   * larger values are faster but less accurate. Only used with {@link RepulsionMode#BARNES_HUT}.
+   *
+   * @param theta the cell width to distance ratio, defaults to 0.8
+   */
+  public void setTheta(double theta) {
+    assert theta >= 0;
+    this.theta = theta;
+  }
+
+  public double getTheta() {
+    return theta;
+  }
+
+  /**
+   * Sets the distance beyond which nodes stop repelling each other, as a multiple of the layout's
+   * {@link GraphLayout#getNodeDist() nodeDist}. Only used with {@link RepulsionMode#GRID}.
+   *
+   * @param cutoff the cutoff radius in edge lengths, defaults to 3
+   */
+  public void setCutoff(double cutoff) {
+    assert cutoff > 0;
+    this.cutoff = cutoff;
+  }
+
+  public double getCutoff() {
+    return cutoff;
+  }
+
+  /**
+   * Sets the strength of a constant pull on each node toward the center of the graph, on top of any
+   * gravity in the {@link ForceModel}, scaled by the node's mass. Only used with
+   * {@link RepulsionMode#GRID}. Keep it weak, around 0.001 with the {@link DefaultForceModel}: the pull
+   * on every node adds up, and with no long range repulsion to resist it can crush the graph together.
+   *
+   * @param gridGravity the strength of the pull, defaults to zero for none
+   */
+  public void setGridGravity(double gridGravity) {
+    assert gridGravity >= 0;
+    this.gridGravity = gridGravity;
+  }
+
+  public double getGridGravity() {
+    return gridGravity;
+  }
+
+  /**
+   * Sets the integrator used to move nodes once the forces on them are known. Defaults to an
+   * {@link EulerIntegrator}.
+   *
+   * @param integrator the integrator to use on the next step
+   */
+  public void setIntegrator(Integrator integrator) {
+    assert integrator != null;
+    this.integrator = integrator;
+  }
+
+  public Integrator getIntegrator() {
+    return integrator;
+  }
+
+  /**
+   * Sets the model giving the strength of repulsion, attraction and gravity. Defaults to a
+   * {@link DefaultForceModel}.
+   *
+   * @param forceModel the model to use on the next step
+   */
+  public void setForceModel(ForceModel forceModel) {
+    assert forceModel != null;
+    this.forceModel = forceModel;
+    massLayout = null;
+  }
+
+  public ForceModel getForceModel() {
+    return forceModel;
+  }
+
+  @Override
+  public void step(GraphLayout<?, ?> layout) {
+    log.finest("Starting update.");
+    beginStep(layout);
+    LayoutProfiler profiler = layout.getProfiler();
+    double start = profiler == null ? 0 : profiler.now();
+    repulse(layout, 0, layout.getNodeCount());
+    if (profiler != null) {
+      profiler.lap(Phase.REPULSION, start);
+    }
+    finishStep(layout);
+  }
+
+  @Override
+  public boolean stepUntil(GraphLayout<?, ?> layout, Clock clock, double deadline) {
+    if (layout != partialLayout || layout.getModCount() != partialModCount) {
+      //nothing in progress, or the graph has changed since it was started
+      log.finest("Starting update.");
+      beginStep(layout);
+    }
+    //repulsion is the only phase that costs more than O(n + m), so it is the only one split up
+    int count = layout.getNodeCount();
+    LayoutProfiler profiler = layout.getProfiler();
+    double start = profiler == null ? 0 : profiler.now();
+    while (partialCursor < count) {
+      int end = Math.min(partialCursor + CHUNK_SIZE, count);
+      repulse(layout, partialCursor, end);
+      partialCursor = end;
+      if (partialCursor < count && clock.now() >= deadline) {
+        if (profiler != null) {
+          profiler.lap(Phase.REPULSION, start);
+        }
+        return false;
+      }
+    }
+    if (profiler != null) {
+      profiler.lap(Phase.REPULSION, start);
+    }
+    finishStep(layout);
+    return true;
+  }
+
+  /**
+   * Gets everything ready to accumulate forces, building whatever structure the repulsion mode needs.
+   */
+  private void beginStep(GraphLayout<?, ?> layout) {
+    LayoutProfiler profiler = layout.getProfiler();
+    double start = profiler == null ? 0 : profiler.now();
+    prepareForces(layout);
+    clearForces(layout, 0, layout.getNodeCount());
+    if (stepMode == RepulsionMode.BARNES_HUT) {
+      buildQuadTree(layout);
+    } else if (stepMode == RepulsionMode.GRID) {
+      buildGrid(layout);
+    }
+    partialLayout = layout;
+    partialModCount = layout.getModCount();
+    partialCursor = 0;
+    if (profiler != null) {
+      profiler.lap(Phase.PREPARE, start);
+    }
+  }
+
+  private void repulse(GraphLayout<?, ?> layout, int start, int end) {
+    if (stepMode == RepulsionMode.BARNES_HUT) {
+      repulseBarnesHut(layout, quadTree, start, end, bearing, null);
+    } else if (stepMode == RepulsionMode.GRID) {
+      repulseGrid(layout, grid, start, end, bearing);
+    } else {
+      repulseExact(layout, start, end);
+    }
+  }
+
+  /**
+   * Applies the remaining forces and moves the nodes, completing the step.
+   */
+  private void finishStep(GraphLayout<?, ?> layout) {
+    int count = layout.getNodeCount();
+    LayoutProfiler profiler = layout.getProfiler();
+    double time = profiler == null ? 0 : profiler.now();
+    attract(layout);
+    gravitate(layout, 0, count);
+    if (profiler != null) {
+      time = profiler.lap(Phase.ATTRACTION, time);
+    }
+
+    integrator.prepare(layout);
+    statistics[0] = 0;
+    statistics[1] = 0;
+    integrate(layout, 0, count, statistics);
+    if (profiler != null) {
+      profiler.lap(Phase.INTEGRATION, time);
+    }
+    layout.setStepStatistics(statistics[0], statistics[1]);
+    partialLayout = null;
+  }
+
+  /**
+   * Computes anything the forces depend on from the graph as a whole: the mass of each node, and the
+   * center of the graph for gravity to pull toward. Must be called at the start of each step, before
+   * any forces are accumulated.
+   *
+   * @param layout the graph being laid out
+   */
+  protected void prepareForces(GraphLayout<?, ?> layout) {
+    //the mode is kept for the whole step, in case it is changed while a step is only partly done
+    stepMode = repulsionMode;
+    int count = layout.getNodeCount();
+    if (layout != massLayout || layout.getModCount() != massModCount) {
+      if (masses.length < count) {
+        masses = new double[count];
+      }
+      int[] degree = new int[count];
+      int[] edgeTo = layout.getEdgeTo(), edgeFrom = layout.getEdgeFrom();
+      for (int e = 0; e < layout.getEdgeCount(); e++) {
+        degree[edgeTo[e]]++;
+        degree[edgeFrom[e]]++;
+      }
+      for (int i = 0; i < count; i++) {
+        masses[i] = forceModel.mass(degree[i]);
+      }
+      massLayout = layout;
+      massModCount = layout.getModCount();
+    }
+
+    double[] x = layout.getX(), y = layout.getY();
+    double sumX = 0, sumY = 0;
+    for (int i = 0; i < count; i++) {
+      sumX += x[i];
+      sumY += y[i];
+    }
+    centerX = count == 0 ? 0 : sumX / count;
+    centerY = count == 0 ? 0 : sumY / count;
+  }
+
+  /**
+   * Zeroes the forces on each node in the given range, ready to accumulate the next step's.
+   *
+   * @param layout the graph being laid out
+   * @param start the index of the first node to clear
+   * @param end one past the index of the last node to clear
+   */
+  protected void clearForces(GraphLayout<?, ?> layout, int start, int end) {
+    Arrays.fill(layout.getForceX(), start, end, 0);
+    Arrays.fill(layout.getForceY(), start, end, 0);
+  }
+
+  /**
+   * Pushes each node in the given range away from every other node, checking each pair.
+   *
+   * @param layout the graph being laid out
+   * @param start the index of the first node to update
+   * @param end one past the index of the last node to update
+   */
+  protected void repulseExact(GraphLayout<?, ?> layout, int start, int end) {
+    int count = layout.getNodeCount();
+    double[] x = layout.getX(), y = layout.getY();
+    double[] fx = layout.getForceX(), fy = layout.getForceY();
+    boolean[] locked = layout.getLockedFlags();
+    double[] mass = masses;
+    double nodeDist = layout.getNodeDist();
+    for (int i = start; i < end; i++) {
+      if (locked[i]) {//no need to update a locked node
+        continue;
+      }
+      if (log.isLoggable(Level.FINEST)) {
+        log.finest("Updating at node " + layout.getNodes().get(i).getId() + "\n" +
+            "    pos " + x[i] + ", " + y[i] + "\n" +
+            "    vec " + layout.getVelocityX()[i] + ", " + layout.getVelocityY()[i]);
+      }
+      double ix = x[i], iy = y[i];
+      double bx = 0, by = 0;
+
+      //push away from every other node
+      for (int j = 0; j < count; j++) {
+        if (i == j) {
+          continue;
+        }
+        double distance = distance(ix, iy, x[j], y[j]);
+        double force = forceModel.repulsion(distance, mass[i], mass[j], nodeDist);
+
+        //i's change in bearing
+        bx += (ix - x[j]) / distance * force;
+        by += (iy - y[j]) / distance * force;
+      }
+      fx[i] += bx;
+      fy[i] += by;
+    }
+  }
+
+  /**
+   * Builds this engine's quadtree over the current node positions.
+   *
+   * @param layout the graph being laid out
+   * @return the tree, ready to be queried
+   */
+  protected QuadTree buildQuadTree(GraphLayout<?, ?> layout) {
+    quadTree.build(layout.getX(), layout.getY(), masses, layout.getNodeCount());
+    return quadTree;
+  }
+
+  /**
+   * Pushes each node in the given range away from every other node, approximating distant clusters by
+   * their center of mass as recorded in the given quadtree.
+   *
+   * @param layout the graph being laid out
+   * @param tree a quadtree built over the current positions
+   * @param start the index of the first node to update
+   * @param end one past the index of the last node to update
+   * @param bearing scratch array of at least two elements
+   * @param stack scratch stack for walking the tree, or null to use the tree's own
+   */
+  protected void repulseBarnesHut(GraphLayout<?, ?> layout, QuadTree tree, int start, int end,
+      double[] bearing, int[] stack) {
+    double[] x = layout.getX(), y = layout.getY();
+    double[] fx = layout.getForceX(), fy = layout.getForceY();
+    boolean[] locked = layout.getLockedFlags();
+    double[] mass = masses;
+    double nodeDist = layout.getNodeDist();
+
+    for (int i = start; i < end; i++) {
+      if (locked[i]) {//no need to update a locked node
+        continue;
+      }
+      bearing[0] = 0;
+      bearing[1] = 0;
+      if (stack == null) {
+        tree.accumulateRepulsion(i, x[i], y[i], mass[i], theta, forceModel, nodeDist, MIN_DISTANCE, bearing);
+      } else {
+        tree.accumulateRepulsion(i, x[i], y[i], mass[i], theta, forceModel, nodeDist, MIN_DISTANCE, bearing,
+            stack);
+      }
+
+      fx[i] += bearing[0];
+      fy[i] += bearing[1];
+    }
+  }
+
+  /**
+   * Builds this engine's grid over the current node positions, with cells as wide as the cutoff radius.
+   *
+   * @param layout the graph being laid out
+   * @return the grid, ready to be queried
+   */
+  protected UniformGrid buildGrid(GraphLayout<?, ?> layout) {
+    grid.build(layout.getX(), layout.getY(), masses, layout.getNodeCount(), cutoff * layout.getNodeDist());
+    return grid;
+  }
+
+  /**
+   * Pushes each node in the given range away from every other node within the cutoff radius, found
+   * using the given grid.
+   *
+   * @param layout the graph being laid out
+   * @param grid a grid built over the current positions
+   * @param start the index of the first node to update
+   * @param end one past the index of the last node to update
+   * @param bearing scratch array of at least two elements
+   */
+  protected void repulseGrid(GraphLayout<?, ?> layout, UniformGrid grid, int start, int end,
+      double[] bearing) {
+    double[] x = layout.getX(), y = layout.getY();
+    double[] fx = layout.getForceX(), fy = layout.getForceY();
+    boolean[] locked = layout.getLockedFlags();
+    double[] mass = masses;
+    double nodeDist = layout.getNodeDist();
+    double radius = cutoff * nodeDist;
+
+    for (int i = start; i < end; i++) {
+      if (locked[i]) {//no need to update a locked node
+        continue;
+      }
+      bearing[0] = 0;
+      bearing[1] = 0;
+      grid.accumulateRepulsion(i, x[i], y[i], mass[i], radius, forceModel, nodeDist, MIN_DISTANCE, bearing);
+
+      fx[i] += bearing[0];
+      fy[i] += bearing[1];
+    }
+  }
+
+  /**
+   * Pulls the two nodes of each edge toward each other.
+   *
+   * @param layout the graph being laid out
+   */
+  protected void attract(GraphLayout<?, ?> layout) {
+    int[] edgeTo = layout.getEdgeTo(), edgeFrom = layout.getEdgeFrom();
+    double[] x = layout.getX(), y = layout.getY();
+    double[] fx = layout.getForceX(), fy = layout.getForceY();
+    boolean[] locked = layout.getLockedFlags();
+    double nodeDist = layout.getNodeDist();
+    for (int i = 0; i < layout.getEdgeCount(); i++) {
+      int to = edgeTo[i];
+      int from = edgeFrom[i];
+
+      double distance = distance(x[to], y[to], x[from], y[from]);
+      double force = forceModel.attraction(distance, nodeDist);
+
+      //force on from, toward to
+      double bx = (x[to] - x[from]) / distance * force,
+             by = (y[to] - y[from]) / distance * force;
+
+      if (!locked[to]) {//if locked, don't update the node's force
+        fx[to] -= bx;
+        fy[to] -= by;
+      }
+      if (!locked[from]) {//if locked, don't update the node's force
+        fx[from] += bx;
+        fy[from] += by;
+      }
+    }
+  }
+
+  /**
+   * Pulls each node in the given range toward the center of the graph, if the {@link ForceModel} has
+   * any gravity, or grid gravity is set while using {@link RepulsionMode#GRID}.
+   *
+   * @param layout the graph being laid out
+   * @param start the index of the first node to update
+   * @param end one past the index of the last node to update
+   */
+  protected void gravitate(GraphLayout<?, ?> layout, int start, int end) {
+    double[] x = layout.getX(), y = layout.getY();
+    double[] fx = layout.getForceX(), fy = layout.getForceY();
+    boolean[] locked = layout.getLockedFlags();
+    double[] mass = masses;
+    double nodeDist = layout.getNodeDist();
+    double extra = stepMode == RepulsionMode.GRID ? gridGravity : 0;
+    for (int i = start; i < end; i++) {
+      if (locked[i]) {
+        continue;
+      }
+      double distance = distance(x[i], y[i], centerX, centerY);
+      double force = forceModel.gravity(distance, mass[i], nodeDist) + extra * mass[i];
+      if (force != 0) {
+        fx[i] -= (x[i] - centerX) / distance * force;
+        fy[i] -= (y[i] - centerY) / distance * force;
+      }
+    }
+  }
+
+  /**
+   * Updates the position of each node in the given range based on current forces, using the
+   * {@link Integrator}. Its {@link Integrator#prepare(GraphLayout)} must already have been called for
+   * this step.
+   *
+   * @param layout the graph being laid out
+   * @param start the index of the first node to update
+   * @param end one past the index of the last node to update
+   * @param statistics two element array, the kinetic energy of the range is added to the first and the
+   *        second is raised to the furthest any node in the range moved
+   */
+  protected void integrate(GraphLayout<?, ?> layout, int start, int end, double[] statistics) {
+    integrator.integrate(layout, start, end, statistics);
+
+    if (log.isLoggable(Level.FINEST)) {
+      double[] x = layout.getX(), y = layout.getY();
+      double[] vx = layout.getVelocityX(), vy = layout.getVelocityY();
+      for (int i = start; i < end; i++) {
+        log.finest("Moving " + layout.getNodes().get(i).getId() + "\n" +
+            "    Pos " + x[i] + ", " + y[i] + "\n" +
+            "    Vec " + vx[i] + ", " + vy[i]);
+      }
+    }
+  }
+
+  protected static double distance(double x1, double y1, double x2, double y2) {
+    return Math.max(MIN_DISTANCE, Math.sqrt(Math.pow(x1 - x2, 2) + Math.pow(y1 - y2, 2)));
+  }
+}
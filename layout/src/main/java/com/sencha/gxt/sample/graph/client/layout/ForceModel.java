@@ -0,0 +1,72 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Describes the forces a {@link ForceDirectedLayoutEngine} applies: repulsion between every pair of
+ * nodes, attraction between the two ends of each edge, and an optional gravity pulling every node
+ * toward the middle of the graph. Each method returns the magnitude of a force, and the engine applies it
+ * along the line between the two bodies involved.
+ * <p>
+ * Repulsion must be proportional to each of the two masses, so that a distant group of nodes can be
+ * approximated by a single body holding their combined mass.
+ */
+public interface ForceModel {
+  /**
+   * Gets the mass of a node with the given number of edges. Mass scales repulsion and gravity.
+   *
+   * @param degree the number of edges attached to the node
+   * @return the node's mass
+   */
+  double mass(int degree);
+
+  /**
+   * Gets the force pushing two bodies apart.
+   *
+   * @param distance the distance between the bodies, never less than
+   *        {@link ForceDirectedLayoutEngine#MIN_DISTANCE}
+   * @param mass1 the mass of the body being pushed
+   * @param mass2 the mass of the body pushing it
+   * @param nodeDist the ideal edge length of the layout
+   * @return the magnitude of the repulsion
+   */
+  double repulsion(double distance, double mass1, double mass2, double nodeDist);
+
+  /**
+   * Gets the force pulling the two ends of an edge together.
+   *
+   * @param distance the length of the edge, never less than {@link ForceDirectedLayoutEngine#MIN_DISTANCE}
+   * @param nodeDist the ideal edge length of the layout
+   * @return the magnitude of the attraction
+   */
+  double attraction(double distance, double nodeDist);
+
+  /**
+   * Gets the force pulling a node toward the center of mass of the graph, which stops disconnected
+   * parts of the graph from drifting apart forever.
+   *
+   * @param distance the distance from the node to the center
+   * @param mass the mass of the node
+   * @param nodeDist the ideal edge length of the layout
+   * @return the magnitude of the pull, zero for no gravity
+   */
+  double gravity(double distance, double mass, double nodeDist);
+}
@@ -0,0 +1,54 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Fruchterman and Reingold's model: with k as the ideal edge length, nodes repel by k^2/d and edges
+ * attract by d^2/k, so two connected nodes come to rest exactly k apart. The slowly decaying repulsion
+ * spreads nodes more evenly than {@link DefaultForceModel}.
+ */
+public class FruchtermanReingoldForceModel implements ForceModel {
+  /**
+   * Scales both forces down to steps the integrators handle well, without changing the shape of the
+   * layout they settle on.
+   */
+  private static final double SCALE = 0.0005;
+
+  @Override
+  public double mass(int degree) {
+    return 1;
+  }
+
+  @Override
+  public double repulsion(double distance, double mass1, double mass2, double nodeDist) {
+    return SCALE * nodeDist * nodeDist * mass1 * mass2 / distance;
+  }
+
+  @Override
+  public double attraction(double distance, double nodeDist) {
+    return SCALE * distance * distance / nodeDist;
+  }
+
+  @Override
+  public double gravity(double distance, double mass, double nodeDist) {
+    return 0;
+  }
+}
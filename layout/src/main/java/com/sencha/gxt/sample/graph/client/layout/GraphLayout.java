@@ -0,0 +1,755 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * The state of a graph being laid out: its nodes and edges, and the position, velocity and the forces
+ * acting on each node. Node state is kept in dense parallel arrays in the same order as {@link #getNodes()}, so that a
+ * {@link LayoutEngine} can run over them without boxing or hashing. The arrays returned from this class
+ * are live, and may be longer than the number of nodes or edges - only the first
+ * {@link #getNodeCount()} or {@link #getEdgeCount()} entries are meaningful. Removing a node moves the
+ * last node into its slot, so indexes should not be held across removals.
+ * <p>
+ * Nodes added to a graph that is already laid out can be warm started: {@link #placeNewNodes(int)} moves
+ * each node added with {@link #addUnplacedNode(Node, double, double)} next to the neighbors it has been
+ * connected to, then focuses the layout on the new nodes and their neighbors for a few steps, so that the
+ * rest of the graph holds still while they settle in.
+ * <p>
+ * Any randomness in laying out the graph is drawn from {@link #getRandom()}. Given a seeded
+ * {@link Random}, a graph built the same way - with the same node ids, see {@link Node#Node(int)} - and
+ * stepped by the same engines ends up in bit-identical positions.
+ *
+ * @param <N>
+ * @param <E>
+ */
+public class GraphLayout<N extends Node, E extends Edge> {
+  private final List<N> nodes = new ArrayList<N>();
+  private final Map<N, Integer> indices = new HashMap<N, Integer>();
+  private double[] x = new double[16];
+  private double[] y = new double[16];
+  private double[] vx = new double[16];
+  private double[] vy = new double[16];
+  private double[] fx = new double[16];
+  private double[] fy = new double[16];
+  private double[] previousFx = new double[16];
+  private double[] previousFy = new double[16];
+  private boolean[] lockedFlags = new boolean[16];
+  private final Set<N> locked = new HashSet<N>();
+
+  //nodes added since the last placeNewNodes call, and those of them with no position yet
+  private final Set<N> newNodes = new LinkedHashSet<N>();
+  private final Set<N> unplaced = new HashSet<N>();
+
+  //while focusSteps is positive, nodes outside the focus are flagged as locked
+  private final Set<N> focus = new HashSet<N>();
+  private int focusSteps;
+
+  //the edges attached to each node, and where each edge is in the edge list, so that removing either
+  //only touches the edges involved
+  private final List<E> edges = new ArrayList<E>();
+  private final Map<E, Integer> edgeIndices = new HashMap<E, Integer>();
+  private final Map<Node, Set<E>> incidentEdges = new HashMap<Node, Set<E>>();
+
+  //endpoint indexes for each edge, kept up to date as nodes move, rebuilt lazily if an edge was added
+  //before one of its nodes
+  private int[] edgeTo = new int[16];
+  private int[] edgeFrom = new int[16];
+  private boolean edgeIndicesDirty = false;
+
+  private int modCount;
+
+  private double kineticEnergy;
+  private double maxDisplacement;
+
+  private double nodeDist = 50;
+
+  private Random random = new Random();
+
+  private LayoutProfiler profiler;
+
+  /**
+   * Adds a node to the layout at the given position, with no velocity.
+   *
+   * @param node the node to add
+   * @param x the starting x position
+   * @param y the starting y position
+   */
+  public void addNode(N node, double x, double y) {
+    assert !indices.containsKey(node) : "Node already added";
+    int index = nodes.size();
+    ensureNodeCapacity(index + 1);
+    this.x[index] = x;
+    this.y[index] = y;
+    vx[index] = 0;
+    vy[index] = 0;
+    fx[index] = 0;
+    fy[index] = 0;
+    previousFx[index] = 0;
+    previousFy[index] = 0;
+    //keep any lock the caller asked for before adding the node, the focus only adds to it
+    lockedFlags[index] = locked.contains(node) || focusSteps > 0;
+    indices.put(node, index);
+    nodes.add(node);
+    newNodes.add(node);
+    modCount++;
+  }
+
+  /**
+   * Adds a node to the layout at a provisional position, to be moved to the barycenter of its neighbors
+   * by the next call to {@link #placeNewNodes(int)}. Nodes with no placed neighbors by then are left at
+   * the provisional position.
+   *
+   * @param node the node to add
+   * @param x the provisional x position
+   * @param y the provisional y position
+   */
+  public void addUnplacedNode(N node, double x, double y) {
+    addNode(node, x, y);
+    unplaced.add(node);
+  }
+
+  /**
+   * Adds an edge to the layout. Its nodes may be added afterward, but must be present before the next
+   * call to {@link #getEdgeTo()} or {@link #getEdgeFrom()}. An edge equal to one already in the layout
+   * is ignored.
+   *
+   * @param edge the edge to add
+   */
+  public void addEdge(E edge) {
+    if (edgeIndices.containsKey(edge)) {
+      return;
+    }
+    int index = edges.size();
+    edges.add(edge);
+    edgeIndices.put(edge, index);
+    link(edge.getTo(), edge);
+    link(edge.getFrom(), edge);
+    modCount++;
+    if (!edgeIndicesDirty) {
+      Integer to = indices.get(edge.getTo());
+      Integer from = indices.get(edge.getFrom());
+      if (to == null || from == null) {
+        //endpoint not yet added, resolve when next asked for
+        edgeIndicesDirty = true;
+      } else {
+        ensureEdgeCapacity(index + 1);
+        edgeTo[index] = to;
+        edgeFrom[index] = from;
+      }
+    }
+  }
+
+  /**
+   * Removes an edge from the layout, leaving its nodes in place. Takes time in proportion to the number
+   * of edges attached to its nodes.
+   *
+   * @param edge the edge to remove
+   * @return true if the edge was in the layout
+   */
+  public boolean removeEdge(E edge) {
+    Integer index = edgeIndices.get(edge);
+    if (index == null) {
+      return false;
+    }
+    E existing = edges.get(index);
+    removeEdgeAt(index);
+    unlink(existing.getTo(), existing);
+    unlink(existing.getFrom(), existing);
+    modCount++;
+    return true;
+  }
+
+  /**
+   * Removes a node and every edge attached to it. Takes time in proportion to the number of edges
+   * attached to it and its neighbors.
+   *
+   * @param node the node to remove
+   * @return the edges that were removed along with the node
+   */
+  public List<E> removeNode(N node) {
+    Integer index = indices.remove(node);
+    if (index == null) {
+      return Collections.emptyList();
+    }
+    Set<E> attached = incidentEdges.remove(node);
+    List<E> removed = attached == null ? new ArrayList<E>() : new ArrayList<E>(attached);
+    for (E edge : removed) {
+      removeEdgeAt(edgeIndices.get(edge));
+      unlink(edge.getTo().equals(node) ? edge.getFrom() : edge.getTo(), edge);
+    }
+
+    //move the last node into the vacated slot so the arrays stay dense
+    int last = nodes.size() - 1;
+    N moved = nodes.remove(last);
+    if (index != last) {
+      nodes.set(index, moved);
+      indices.put(moved, index);
+      x[index] = x[last];
+      y[index] = y[last];
+      vx[index] = vx[last];
+      vy[index] = vy[last];
+      fx[index] = fx[last];
+      fy[index] = fy[last];
+      previousFx[index] = previousFx[last];
+      previousFy[index] = previousFy[last];
+      lockedFlags[index] = lockedFlags[last];
+      //point the moved node's edges at its new slot
+      Set<E> movedEdges = incidentEdges.get(moved);
+      if (movedEdges != null && !edgeIndicesDirty) {
+        for (E edge : movedEdges) {
+          int e = edgeIndices.get(edge);
+          if (edgeTo[e] == last) {
+            edgeTo[e] = index;
+          }
+          if (edgeFrom[e] == last) {
+            edgeFrom[e] = index;
+          }
+        }
+      }
+    }
+    locked.remove(node);
+    newNodes.remove(node);
+    unplaced.remove(node);
+    focus.remove(node);
+    modCount++;
+    return removed;
+  }
+
+  /**
+   * Removes the edge at the given index, moving the last edge into its slot.
+   */
+  private void removeEdgeAt(int index) {
+    int last = edges.size() - 1;
+    E edge = edges.get(index);
+    E moved = edges.remove(last);
+    edgeIndices.remove(edge);
+    if (index != last) {
+      edges.set(index, moved);
+      edgeIndices.put(moved, index);
+      if (!edgeIndicesDirty) {
+        edgeTo[index] = edgeTo[last];
+        edgeFrom[index] = edgeFrom[last];
+      }
+    }
+  }
+
+  private void link(Node node, E edge) {
+    Set<E> attached = incidentEdges.get(node);
+    if (attached == null) {
+      attached = new LinkedHashSet<E>();
+      incidentEdges.put(node, attached);
+    }
+    attached.add(edge);
+  }
+
+  private void unlink(Node node, E edge) {
+    Set<E> attached = incidentEdges.get(node);
+    if (attached != null) {
+      attached.remove(edge);
+      if (attached.isEmpty()) {
+        incidentEdges.remove(node);
+      }
+    }
+  }
+
+  public void clear() {
+    edges.clear();
+    edgeIndices.clear();
+    incidentEdges.clear();
+    edgeIndicesDirty = false;
+    locked.clear();
+    newNodes.clear();
+    unplaced.clear();
+    focus.clear();
+    focusSteps = 0;
+    nodes.clear();
+    indices.clear();
+    modCount++;
+  }
+
+  public boolean contains(N node) {
+    return indices.containsKey(node);
+  }
+
+  /**
+   * Gets the current index of the given node in the state arrays, or -1 if not present.
+   *
+   * @param node
+   * @return
+   */
+  public int indexOf(N node) {
+    Integer index = indices.get(node);
+    return index == null ? -1 : index;
+  }
+
+  public List<N> getNodes() {
+    return Collections.unmodifiableList(nodes);
+  }
+
+  public List<E> getEdges() {
+    return Collections.unmodifiableList(edges);
+  }
+
+  /**
+   * Gets the edges attached to the given node, in the order they were added.
+   *
+   * @param node
+   * @return a live, unmodifiable view of the node's edges
+   */
+  public Set<E> getEdges(N node) {
+    Set<E> attached = incidentEdges.get(node);
+    return attached == null ? Collections.<E>emptySet() : Collections.unmodifiableSet(attached);
+  }
+
+  /**
+   * Gets the nodes joined to the given node by an edge, in the order the edges were added. A node joined
+   * by more than one edge is listed once for each.
+   *
+   * @param node
+   * @return
+   */
+  @SuppressWarnings("unchecked")
+  public List<N> getNeighbors(N node) {
+    Set<E> attached = incidentEdges.get(node);
+    if (attached == null) {
+      return Collections.emptyList();
+    }
+    List<N> neighbors = new ArrayList<N>(attached.size());
+    for (E edge : attached) {
+      neighbors.add((N) (edge.getTo().equals(node) ? edge.getFrom() : edge.getTo()));
+    }
+    return neighbors;
+  }
+
+  public int getNodeCount() {
+    return nodes.size();
+  }
+
+  public int getEdgeCount() {
+    return edges.size();
+  }
+
+  /**
+   * Gets a counter that changes every time a node or edge is added or removed, so that engines can
+   * cache structures derived from the shape of the graph and rebuild them only when it changes.
+   *
+   * @return
+   */
+  public int getModCount() {
+    return modCount;
+  }
+
+  /**
+   * Moves the given node, and zeroes out its velocity and any record of the forces that were acting on
+   * it.
+   *
+   * @param node the node to move
+   * @param x the new x position
+   * @param y the new y position
+   */
+  public void setPosition(N node, double x, double y) {
+    int index = indices.get(node);
+    this.x[index] = x;
+    this.y[index] = y;
+    vx[index] = 0;
+    vy[index] = 0;
+    previousFx[index] = 0;
+    previousFy[index] = 0;
+    unplaced.remove(node);
+  }
+
+  /**
+   * Places the nodes added since the last call, and focuses the layout on them. Each node added with
+   * {@link #addUnplacedNode(Node, double, double)} is moved to the barycenter of its already placed
+   * neighbors, working outward so that a chain of new nodes hanging off the graph is placed link by link.
+   * If the graph already held other nodes, the new nodes and their neighbors then become the focus for
+   * the given number of steps, see {@link #focus(Collection, int)}. Only the edges of the new nodes are
+   * examined, so the cost is proportional to the change rather than to the size of the graph.
+   *
+   * @param focusSteps the number of steps to hold the rest of the graph still for, or zero to only place
+   *          the new nodes
+   */
+  public void placeNewNodes(int focusSteps) {
+    if (newNodes.isEmpty()) {
+      return;
+    }
+    boolean progress = !unplaced.isEmpty();
+    while (progress) {
+      progress = false;
+      for (Iterator<N> it = newNodes.iterator(); it.hasNext();) {
+        N node = it.next();
+        if (unplaced.contains(node) && placeAtBarycenter(node)) {
+          unplaced.remove(node);
+          progress = true;
+        }
+      }
+    }
+
+    if (focusSteps > 0 && nodes.size() > newNodes.size()) {
+      Set<N> changed = new HashSet<N>(newNodes);
+      for (N node : newNodes) {
+        for (N neighbor : getNeighbors(node)) {
+          if (contains(neighbor)) {
+            changed.add(neighbor);
+          }
+        }
+      }
+      focus(changed, focusSteps);
+    }
+    newNodes.clear();
+    unplaced.clear();
+  }
+
+  /**
+   * Moves the node to the barycenter of those of its neighbors that are placed, nudged in a random
+   * direction so that several new nodes sharing the same neighbors don't land on top of each other.
+   * A node with a single placed neighbor is put an edge length away from it.
+   */
+  private boolean placeAtBarycenter(N node) {
+    double sumX = 0, sumY = 0;
+    int count = 0;
+    for (N neighbor : getNeighbors(node)) {
+      if (contains(neighbor) && !unplaced.contains(neighbor)) {
+        int index = indices.get(neighbor);
+        sumX += x[index];
+        sumY += y[index];
+        count++;
+      }
+    }
+    if (count == 0) {
+      return false;
+    }
+    double angle = 2 * Math.PI * random.nextDouble();
+    double offset = count == 1 ? nodeDist : nodeDist / 10;
+    setPosition(node, sumX / count + offset * Math.cos(angle), sumY / count + offset * Math.sin(angle));
+    return true;
+  }
+
+  /**
+   * Restricts the layout to the given nodes for the next few steps, by flagging every other node as
+   * locked in {@link #getLockedFlags()}. The other nodes still push and pull on the focused ones, but
+   * hold still and need no forces computed for them, so a small change to a large graph can settle
+   * without disturbing the rest of it. Focusing again while a focus is active adds to it, and restarts
+   * the count.
+   *
+   * @param focusNodes the nodes free to move
+   * @param steps the number of steps, as counted by {@link #setStepStatistics(double, double)}, before
+   *          the whole graph is free to move again
+   */
+  public void focus(Collection<? extends N> focusNodes, int steps) {
+    if (focusSteps <= 0) {
+      focus.clear();
+    }
+    focus.addAll(focusNodes);
+    focusSteps = steps;
+    updateLockedFlags();
+  }
+
+  /**
+   * Ends any focus started by {@link #focus(Collection, int)}, letting every unlocked node move again.
+   */
+  public void clearFocus() {
+    if (focusSteps > 0) {
+      focus.clear();
+      focusSteps = 0;
+      updateLockedFlags();
+    }
+  }
+
+  /**
+   * Gets the number of steps left before the current focus ends, or zero if there is none.
+   *
+   * @return
+   */
+  public int getFocusSteps() {
+    return focusSteps;
+  }
+
+  private void updateLockedFlags() {
+    for (int i = 0; i < nodes.size(); i++) {
+      N node = nodes.get(i);
+      lockedFlags[i] = locked.contains(node) || (focusSteps > 0 && !focus.contains(node));
+    }
+  }
+
+  public Set<N> getLocked() {
+    return Collections.unmodifiableSet(locked);
+  }
+
+  /**
+   * Prevents the given node from having its position or velocity updated by the layout.
+   *
+   * @param node
+   * @param isLocked
+   */
+  public void setLocked(N node, boolean isLocked) {
+    if (isLocked) {
+      locked.add(node);
+    } else {
+      locked.remove(node);
+    }
+    Integer index = indices.get(node);
+    if (index != null) {
+      lockedFlags[index] = isLocked || (focusSteps > 0 && !focus.contains(node));
+    }
+  }
+
+  /**
+   * Records how much the layout moved during the last step, so callers can tell when it has settled.
+   * Called by {@link LayoutEngine}s at the end of each step, which also counts down any focus.
+   *
+   * @param kineticEnergy the total kinetic energy of all nodes, treating each as unit mass
+   * @param maxDisplacement the furthest any single node moved
+   */
+  public void setStepStatistics(double kineticEnergy, double maxDisplacement) {
+    this.kineticEnergy = kineticEnergy;
+    this.maxDisplacement = maxDisplacement;
+    if (focusSteps > 0 && --focusSteps == 0) {
+      focus.clear();
+      updateLockedFlags();
+    }
+  }
+
+  /**
+   * Gets the total kinetic energy of the nodes after the last step.
+   *
+   * @return
+   */
+  public double getKineticEnergy() {
+    return kineticEnergy;
+  }
+
+  /**
+   * Gets the furthest distance that any node moved in the last step.
+   *
+   * @return
+   */
+  public double getMaxDisplacement() {
+    return maxDisplacement;
+  }
+
+  /**
+   * Sets the source of randomness for placing nodes, so that a layout can be repeated exactly. Defaults
+   * to an unseeded {@link Random}.
+   *
+   * @param random the random number generator to use
+   */
+  public void setRandom(Random random) {
+    assert random != null;
+    this.random = random;
+  }
+
+  public Random getRandom() {
+    return random;
+  }
+
+  /**
+   * Sets a profiler for engines to record the time spent in each phase of their steps into. Defaults to
+   * null, so that no time is spent measuring.
+   *
+   * @param profiler the profiler to record into, or null
+   */
+  public void setProfiler(LayoutProfiler profiler) {
+    this.profiler = profiler;
+  }
+
+  public LayoutProfiler getProfiler() {
+    return profiler;
+  }
+
+  public double getNodeDist() {
+    return nodeDist;
+  }
+
+  /**
+   * Sets the length of the 'spring' to use on edges.
+   *
+   * @param nodeDist the length of the 'spring' to use on edges
+   */
+  public void setNodeDist(double nodeDist) {
+    this.nodeDist = nodeDist;
+  }
+
+  public double[] getX() {
+    return x;
+  }
+
+  public double[] getY() {
+    return y;
+  }
+
+  public double[] getVelocityX() {
+    return vx;
+  }
+
+  public double[] getVelocityY() {
+    return vy;
+  }
+
+  /**
+   * Gets the x component of the force acting on each node, accumulated by a {@link LayoutEngine} during a
+   * step and consumed by its {@link Integrator}.
+   *
+   * @return
+   */
+  public double[] getForceX() {
+    return fx;
+  }
+
+  /**
+   * Gets the y component of the force acting on each node, accumulated by a {@link LayoutEngine} during a
+   * step and consumed by its {@link Integrator}.
+   *
+   * @return
+   */
+  public double[] getForceY() {
+    return fy;
+  }
+
+  /**
+   * Gets the x component of the force that acted on each node in the previous step, for integrators
+   * that compare successive forces. Maintained by the {@link Integrator}.
+   *
+   * @return
+   */
+  public double[] getPreviousForceX() {
+    return previousFx;
+  }
+
+  /**
+   * Gets the y component of the force that acted on each node in the previous step, for integrators
+   * that compare successive forces. Maintained by the {@link Integrator}.
+   *
+   * @return
+   */
+  public double[] getPreviousForceY() {
+    return previousFy;
+  }
+
+  /**
+   * Gets whether each node should be left where it is by the layout, either because it was locked with
+   * {@link #setLocked(Node, boolean)}, or because it is outside the current focus.
+   *
+   * @return
+   */
+  public boolean[] getLockedFlags() {
+    return lockedFlags;
+  }
+
+  /**
+   * Gets the index of the 'to' node of each edge, in the same order as {@link #getEdges()}.
+   *
+   * @return
+   */
+  public int[] getEdgeTo() {
+    ensureEdgeIndices();
+    return edgeTo;
+  }
+
+  /**
+   * Gets the index of the 'from' node of each edge, in the same order as {@link #getEdges()}.
+   *
+   * @return
+   */
+  public int[] getEdgeFrom() {
+    ensureEdgeIndices();
+    return edgeFrom;
+  }
+
+  private void ensureEdgeIndices() {
+    if (!edgeIndicesDirty) {
+      return;
+    }
+    ensureEdgeCapacity(edges.size());
+    for (int i = 0; i < edges.size(); i++) {
+      E e = edges.get(i);
+      edgeTo[i] = indices.get(e.getTo());
+      edgeFrom[i] = indices.get(e.getFrom());
+    }
+    edgeIndicesDirty = false;
+  }
+
+  /**
+   * Grows the state arrays to hold at least the given number of nodes and edges, so that adding many at
+   * once doesn't copy them repeatedly.
+   *
+   * @param nodeCount the number of nodes to make room for
+   * @param edgeCount the number of edges to make room for
+   */
+  public void ensureCapacity(int nodeCount, int edgeCount) {
+    ensureNodeCapacity(nodeCount);
+    ensureEdgeCapacity(edgeCount);
+  }
+
+  private void ensureNodeCapacity(int capacity) {
+    if (capacity <= x.length) {
+      return;
+    }
+    int size = Math.max(capacity, x.length * 2);
+    x = copyOf(x, size);
+    y = copyOf(y, size);
+    vx = copyOf(vx, size);
+    vy = copyOf(vy, size);
+    fx = copyOf(fx, size);
+    fy = copyOf(fy, size);
+    previousFx = copyOf(previousFx, size);
+    previousFy = copyOf(previousFy, size);
+    boolean[] flags = new boolean[size];
+    System.arraycopy(lockedFlags, 0, flags, 0, lockedFlags.length);
+    lockedFlags = flags;
+  }
+
+  private void ensureEdgeCapacity(int capacity) {
+    if (capacity <= edgeTo.length) {
+      return;
+    }
+    int size = Math.max(capacity, edgeTo.length * 2);
+    edgeTo = copyOf(edgeTo, size);
+    edgeFrom = copyOf(edgeFrom, size);
+  }
+
+  private static double[] copyOf(double[] array, int size) {
+    double[] copy = new double[size];
+    System.arraycopy(array, 0, copy, 0, array.length);
+    return copy;
+  }
+
+  private static int[] copyOf(int[] array, int size) {
+    int[] copy = new int[size];
+    System.arraycopy(array, 0, copy, 0, array.length);
+    return copy;
+  }
+}
@@ -0,0 +1,40 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * A {@link LayoutEngine} whose steps can be split into pieces, so that a step too expensive to fit in a
+ * single animation frame can be spread across several.
+ */
+public interface IncrementalLayoutEngine extends LayoutEngine {
+  /**
+   * Runs as much of a step as fits before the deadline, resuming the step left unfinished by the last
+   * call if there is one. Always makes some progress, even if the deadline has already passed. If the
+   * nodes or edges of the graph change between calls, the unfinished step is abandoned and a new one
+   * started.
+   *
+   * @param layout the graph being laid out
+   * @param clock the clock to check the deadline against
+   * @param deadline the time, according to the clock, by which to stop
+   * @return true if a step was completed, false if part of it remains for the next call
+   */
+  boolean stepUntil(GraphLayout<?, ?> layout, Clock clock, double deadline);
+}
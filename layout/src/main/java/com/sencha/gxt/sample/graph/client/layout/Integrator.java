@@ -0,0 +1,52 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Moves nodes according to the forces accumulated on them during a step of a {@link LayoutEngine}.
+ * Forces are read from {@link GraphLayout#getForceX()} and {@link GraphLayout#getForceY()}, and each
+ * node is treated as having unit mass unless the integrator says otherwise.
+ * <p>
+ * Each step calls {@link #prepare(GraphLayout)} once, then {@link #integrate(GraphLayout, int, int, double[])}
+ * over one or more ranges covering every node. Ranges may be integrated concurrently, so
+ * {@code integrate} must only write to nodes within its own range and must not change the
+ * integrator's own state.
+ */
+public interface Integrator {
+  /**
+   * Called once per step after all forces have been accumulated, before any range is integrated, to
+   * compute anything that depends on the graph as a whole.
+   *
+   * @param layout the graph being laid out
+   */
+  void prepare(GraphLayout<?, ?> layout);
+
+  /**
+   * Updates the velocity and position of each unlocked node in the given range.
+   *
+   * @param layout the graph being laid out
+   * @param start the index of the first node to update
+   * @param end one past the index of the last node to update
+   * @param statistics two element array, the kinetic energy of the range is added to the first and the
+   *        second is raised to the furthest any node in the range moved
+   */
+  void integrate(GraphLayout<?, ?> layout, int start, int end, double[] statistics);
+}
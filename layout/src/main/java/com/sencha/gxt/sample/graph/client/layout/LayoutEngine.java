@@ -0,0 +1,35 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Moves the nodes of a {@link GraphLayout} one step toward a finished layout. Implementations only
+ * depend on the graph model, so they can run in the browser to animate a graph or on the JVM to lay
+ * one out ahead of time.
+ */
+public interface LayoutEngine {
+  /**
+   * Runs a single tick of the layout, updating the velocity and position of every unlocked node.
+   *
+   * @param layout the graph to lay out
+   */
+  void step(GraphLayout<?, ?> layout);
+}
@@ -0,0 +1,109 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Adds up how long layout engines spend in each phase of their steps. Set one on a {@link GraphLayout}
+ * with {@link GraphLayout#setProfiler(LayoutProfiler)}, and engines stepping that layout record their
+ * time into it until it is {@link #reset()}. Timing costs one read of the clock per phase, and nothing
+ * at all while no profiler is set. Phases of a step split across several calls are recorded as they
+ * run, so the times may include part of a step that has not finished yet. Not thread safe, only one
+ * thread may record into a profiler at a time.
+ */
+public class LayoutProfiler {
+  /**
+   * The parts of a step that are timed separately.
+   */
+  public enum Phase {
+    /**
+     * Everything done before forces are accumulated: node masses, the center of the graph, and the
+     * quadtree or grid used for repulsion.
+     */
+    PREPARE,
+    /**
+     * Pushing nodes apart.
+     */
+    REPULSION,
+    /**
+     * Pulling nodes together along their edges, and toward the center.
+     */
+    ATTRACTION,
+    /**
+     * Moving the nodes according to their forces.
+     */
+    INTEGRATION
+  }
+
+  private static final Phase[] PHASES = Phase.values();
+
+  private final Clock clock;
+  private final double[] times = new double[PHASES.length];
+
+  /**
+   * Creates a profiler timing phases with the given clock.
+   *
+   * @param clock the source of the current time, in milliseconds
+   */
+  public LayoutProfiler(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Gets the current time, to start timing a phase from.
+   *
+   * @return the current time in milliseconds
+   */
+  public double now() {
+    return clock.now();
+  }
+
+  /**
+   * Adds the time since the given start to the given phase.
+   *
+   * @param phase the phase that just finished
+   * @param start the time the phase started
+   * @return the current time, from which to time the next phase
+   */
+  public double lap(Phase phase, double start) {
+    double now = clock.now();
+    times[phase.ordinal()] += now - start;
+    return now;
+  }
+
+  /**
+   * Gets the total time spent in the given phase since the last reset.
+   *
+   * @param phase the phase to get the time of
+   * @return the time in milliseconds
+   */
+  public double getTime(Phase phase) {
+    return times[phase.ordinal()];
+  }
+
+  /**
+   * Starts counting again from zero.
+   */
+  public void reset() {
+    for (int i = 0; i < times.length; i++) {
+      times[i] = 0;
+    }
+  }
+}
@@ -0,0 +1,418 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * Multilevel layout in the style of Walshaw's algorithm, for graphs too large for a single-level
+ * force-directed layout to untangle in a reasonable number of steps. When the graph has changed
+ * substantially since the last run, it is repeatedly coarsened by collapsing a matching of its edges
+ * until only a few nodes remain. The coarsest graph is laid out, then each finer level is placed at the
+ * position of the node it was merged into and refined for a few steps, until the original graph is
+ * reached. Every other step just runs the wrapped engine to keep refining the full graph.
+ */
+public class MultilevelLayoutEngine implements IncrementalLayoutEngine {
+  /**
+   * How much longer the springs are on each coarser level, so that when a level is expanded there is
+   * room for the nodes merged into each coarse node.
+   */
+  private static final double LEVEL_SCALE = Math.sqrt(7.0 / 4.0);
+  /**
+   * Coarsening stops once a level is no more than this fraction smaller than the one before it, as
+   * happens with star-like graphs where few edges can be matched.
+   */
+  private static final double MIN_REDUCTION = 0.9;
+  /**
+   * Turning by this angle between successive nodes spreads them evenly without lining any up.
+   */
+  private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+
+  /**
+   * One level of the coarsening hierarchy. Nodes are identified by index, and each node on a coarser
+   * level records the one or two nodes on the finer level that were merged to make it.
+   */
+  private static class Level {
+    int count;
+    int edgeCount;
+    int[] edgeTo;
+    int[] edgeFrom;
+    int[] weight;
+    //children on the next finer level, secondChild is -1 if the node wasn't matched
+    int[] firstChild;
+    int[] secondChild;
+    double[] x;
+    double[] y;
+  }
+
+  private final LayoutEngine refinement;
+  private int coarsestSize = 20;
+  private int coarsestSteps = 200;
+  private int levelSteps = 30;
+
+  private GraphLayout<?, ?> lastLayout;
+  private int lastModCount;
+  private int lastNodeCount;
+  private int lastEdgeCount;
+  private Node lastFirstNode;
+
+  /**
+   * Creates a multilevel engine refining each level with a Barnes-Hut {@link ForceDirectedLayoutEngine}.
+   */
+  public MultilevelLayoutEngine() {
+    this(createDefaultRefinement());
+  }
+
+  /**
+   * Creates a multilevel engine refining each level with the given engine. The engine is also used on
+   * its own for every step after the multilevel layout has been run.
+   *
+   * @param refinement the engine to lay out and refine each level with
+   */
+  public MultilevelLayoutEngine(LayoutEngine refinement) {
+    this.refinement = refinement;
+  }
+
+  private static LayoutEngine createDefaultRefinement() {
+    ForceDirectedLayoutEngine engine = new ForceDirectedLayoutEngine();
+    engine.setRepulsionMode(ForceDirectedLayoutEngine.RepulsionMode.BARNES_HUT);
+    return engine;
+  }
+
+  public LayoutEngine getRefinement() {
+    return refinement;
+  }
+
+  /**
+   * Sets the number of nodes at or below which coarsening stops. Defaults to 20.
+   *
+   * @param coarsestSize the size of the smallest level
+   */
+  public void setCoarsestSize(int coarsestSize) {
+    assert coarsestSize > 0;
+    this.coarsestSize = coarsestSize;
+  }
+
+  public int getCoarsestSize() {
+    return coarsestSize;
+  }
+
+  /**
+   * Sets the number of steps to lay out the coarsest level with, and the number of steps to refine
+   * each finer level with after it is expanded. Defaults to 200 and 30.
+   *
+   * @param coarsestSteps steps to run on the coarsest level
+   * @param levelSteps steps to run on each other level, except the original graph
+   */
+  public void setSteps(int coarsestSteps, int levelSteps) {
+    this.coarsestSteps = coarsestSteps;
+    this.levelSteps = levelSteps;
+  }
+
+  public int getCoarsestSteps() {
+    return coarsestSteps;
+  }
+
+  public int getLevelSteps() {
+    return levelSteps;
+  }
+
+  /**
+   * Forces the full multilevel layout to run again on the next step, even if the graph has not
+   * changed.
+   */
+  public void invalidate() {
+    lastLayout = null;
+  }
+
+  @Override
+  public void step(GraphLayout<?, ?> layout) {
+    prepare(layout);
+    refinement.step(layout);
+  }
+
+  /**
+   * Runs the multilevel layout in one go if it is needed, then as much of a refinement step as fits
+   * before the deadline if the refinement engine can split its steps.
+   */
+  @Override
+  public boolean stepUntil(GraphLayout<?, ?> layout, Clock clock, double deadline) {
+    prepare(layout);
+    if (refinement instanceof IncrementalLayoutEngine) {
+      return ((IncrementalLayoutEngine) refinement).stepUntil(layout, clock, deadline);
+    }
+    refinement.step(layout);
+    return true;
+  }
+
+  private void prepare(GraphLayout<?, ?> layout) {
+    if (layout == lastLayout && layout.getFocusSteps() > 0) {
+      //a warm started change is being settled locally, keep the rest of the graph where it is
+      remember(layout);
+    } else if (needsMultilevel(layout)) {
+      layoutMultilevel(layout);
+      remember(layout);
+    }
+    lastModCount = layout.getModCount();
+  }
+
+  private void remember(GraphLayout<?, ?> layout) {
+    lastLayout = layout;
+    lastNodeCount = layout.getNodeCount();
+    lastEdgeCount = layout.getEdgeCount();
+    lastFirstNode = layout.getNodeCount() == 0 ? null : layout.getNodes().get(0);
+  }
+
+  /**
+   * Decides if the graph has changed enough to be worth laying out from scratch. Small incremental
+   * changes are left for the refinement engine, so that adding a node doesn't rearrange everything.
+   */
+  private boolean needsMultilevel(GraphLayout<?, ?> layout) {
+    if (layout != lastLayout) {
+      return true;
+    }
+    if (layout.getModCount() == lastModCount) {
+      return false;
+    }
+    int count = layout.getNodeCount();
+    if (count == 0) {
+      return false;
+    }
+    //a cleared and rebuilt graph may be the same size, but won't start with the same node
+    return layout.getNodes().get(0) != lastFirstNode
+        || Math.abs(count - lastNodeCount) * 4 > lastNodeCount
+        || Math.abs(layout.getEdgeCount() - lastEdgeCount) * 4 > lastEdgeCount;
+  }
+
+  private void layoutMultilevel(GraphLayout<?, ?> layout) {
+    int count = layout.getNodeCount();
+    if (count <= coarsestSize) {
+      //already small enough to lay out directly
+      return;
+    }
+
+    //build the hierarchy, finest level first
+    List<Level> levels = new ArrayList<Level>();
+    Level finest = new Level();
+    finest.count = count;
+    finest.edgeCount = layout.getEdgeCount();
+    finest.edgeTo = layout.getEdgeTo();
+    finest.edgeFrom = layout.getEdgeFrom();
+    finest.weight = new int[count];
+    for (int i = 0; i < count; i++) {
+      finest.weight[i] = 1;
+    }
+    levels.add(finest);
+    Level current = finest;
+    while (current.count > coarsestSize) {
+      Level coarser = coarsen(current);
+      if (coarser.count > current.count * MIN_REDUCTION) {
+        break;
+      }
+      levels.add(coarser);
+      current = coarser;
+    }
+    if (levels.size() == 1) {
+      //nothing could be merged, the refinement engine will have to do
+      return;
+    }
+
+    //lay out the coarsest level from scratch, around the middle of the existing layout
+    double nodeDist = layout.getNodeDist();
+    double[] x = layout.getX(), y = layout.getY();
+    double centerX = 0, centerY = 0;
+    for (int i = 0; i < count; i++) {
+      centerX += x[i];
+      centerY += y[i];
+    }
+    centerX /= count;
+    centerY /= count;
+
+    int coarsestLevel = levels.size() - 1;
+    Level coarsest = levels.get(coarsestLevel);
+    coarsest.x = new double[coarsest.count];
+    coarsest.y = new double[coarsest.count];
+    double radius = levelDist(nodeDist, coarsestLevel) * Math.sqrt(coarsest.count);
+    for (int i = 0; i < coarsest.count; i++) {
+      //spread evenly over a disc, so no two nodes start in the same place
+      double angle = i * GOLDEN_ANGLE;
+      double r = radius * Math.sqrt((i + 0.5) / coarsest.count);
+      coarsest.x[i] = centerX + r * Math.cos(angle);
+      coarsest.y[i] = centerY + r * Math.sin(angle);
+    }
+    refine(coarsest, levelDist(nodeDist, coarsestLevel), coarsestSteps);
+
+    //expand each level into the next finer one and refine it
+    for (int l = coarsestLevel; l > 0; l--) {
+      Level coarse = levels.get(l);
+      Level fine = levels.get(l - 1);
+      double fineDist = levelDist(nodeDist, l - 1);
+      fine.x = new double[fine.count];
+      fine.y = new double[fine.count];
+      for (int c = 0; c < coarse.count; c++) {
+        fine.x[coarse.firstChild[c]] = coarse.x[c];
+        fine.y[coarse.firstChild[c]] = coarse.y[c];
+        int second = coarse.secondChild[c];
+        if (second != -1) {
+          //nudge the second child off the first so that they repel in a sensible direction
+          double angle = c * GOLDEN_ANGLE;
+          fine.x[second] = coarse.x[c] + fineDist / 4 * Math.cos(angle);
+          fine.y[second] = coarse.y[c] + fineDist / 4 * Math.sin(angle);
+        }
+      }
+      if (l - 1 > 0) {
+        refine(fine, fineDist, levelSteps);
+      }
+    }
+
+    //copy the result into the real graph, leaving locked nodes where they were put
+    double[] vx = layout.getVelocityX(), vy = layout.getVelocityY();
+    boolean[] locked = layout.getLockedFlags();
+    for (int i = 0; i < count; i++) {
+      if (!locked[i]) {
+        x[i] = finest.x[i];
+        y[i] = finest.y[i];
+        vx[i] = 0;
+        vy[i] = 0;
+      }
+    }
+  }
+
+  private static double levelDist(double nodeDist, int level) {
+    return nodeDist * Math.pow(LEVEL_SCALE, level);
+  }
+
+  /**
+   * Runs the refinement engine over a level, starting from and updating its positions.
+   */
+  private void refine(Level level, double nodeDist, int steps) {
+    GraphLayout<Node, Edge> levelLayout = new GraphLayout<Node, Edge>();
+    levelLayout.setNodeDist(nodeDist);
+    Node[] nodes = new Node[level.count];
+    for (int i = 0; i < level.count; i++) {
+      //ids only need to be unique within this layout
+      nodes[i] = new Node(i);
+      levelLayout.addNode(nodes[i], level.x[i], level.y[i]);
+    }
+    for (int e = 0; e < level.edgeCount; e++) {
+      levelLayout.addEdge(new Edge(nodes[level.edgeTo[e]], nodes[level.edgeFrom[e]]));
+    }
+    for (int s = 0; s < steps; s++) {
+      refinement.step(levelLayout);
+    }
+    System.arraycopy(levelLayout.getX(), 0, level.x, 0, level.count);
+    System.arraycopy(levelLayout.getY(), 0, level.y, 0, level.count);
+  }
+
+  /**
+   * Builds the next coarser level by matching each node with its lightest unmatched neighbor, and
+   * merging each matched pair into one node.
+   */
+  private static Level coarsen(Level fine) {
+    int count = fine.count;
+
+    //neighbors of each node in compressed sparse row form
+    int[] start = new int[count + 1];
+    for (int e = 0; e < fine.edgeCount; e++) {
+      start[fine.edgeTo[e] + 1]++;
+      start[fine.edgeFrom[e] + 1]++;
+    }
+    for (int i = 0; i < count; i++) {
+      start[i + 1] += start[i];
+    }
+    int[] neighbors = new int[start[count]];
+    int[] next = new int[count];
+    System.arraycopy(start, 0, next, 0, count);
+    for (int e = 0; e < fine.edgeCount; e++) {
+      neighbors[next[fine.edgeTo[e]]++] = fine.edgeFrom[e];
+      neighbors[next[fine.edgeFrom[e]]++] = fine.edgeTo[e];
+    }
+
+    //match nodes, preferring light neighbors so that coarse nodes stay evenly sized
+    int[] parent = new int[count];
+    for (int i = 0; i < count; i++) {
+      parent[i] = -1;
+    }
+    Level coarse = new Level();
+    coarse.firstChild = new int[count];
+    coarse.secondChild = new int[count];
+    coarse.weight = new int[count];
+    int coarseCount = 0;
+    for (int i = 0; i < count; i++) {
+      if (parent[i] != -1) {
+        continue;
+      }
+      int match = -1;
+      for (int n = start[i]; n < start[i + 1]; n++) {
+        int candidate = neighbors[n];
+        if (candidate != i && parent[candidate] == -1
+            && (match == -1 || fine.weight[candidate] < fine.weight[match])) {
+          match = candidate;
+        }
+      }
+      int c = coarseCount++;
+      parent[i] = c;
+      coarse.firstChild[c] = i;
+      coarse.secondChild[c] = match;
+      coarse.weight[c] = fine.weight[i];
+      if (match != -1) {
+        parent[match] = c;
+        coarse.weight[c] += fine.weight[match];
+      }
+    }
+    coarse.count = coarseCount;
+
+    //collapse edges onto the coarse nodes, dropping any inside a merged pair and any duplicates
+    int[] edgeTo = new int[fine.edgeCount];
+    int[] edgeFrom = new int[fine.edgeCount];
+    int edgeCount = 0;
+    int[] lastSeen = new int[coarseCount];
+    for (int c = 0; c < coarseCount; c++) {
+      lastSeen[c] = -1;
+    }
+    for (int c = 0; c < coarseCount; c++) {
+      for (int k = 0; k < 2; k++) {
+        int child = k == 0 ? coarse.firstChild[c] : coarse.secondChild[c];
+        if (child == -1) {
+          continue;
+        }
+        for (int n = start[child]; n < start[child + 1]; n++) {
+          int other = parent[neighbors[n]];
+          //each pair is seen from both ends, keep only the one from the lower index
+          if (other > c && lastSeen[other] != c) {
+            lastSeen[other] = c;
+            edgeTo[edgeCount] = c;
+            edgeFrom[edgeCount] = other;
+            edgeCount++;
+          }
+        }
+      }
+    }
+    coarse.edgeCount = edgeCount;
+    coarse.edgeTo = edgeTo;
+    coarse.edgeFrom = edgeFrom;
+    return coarse;
+  }
+}
@@ -0,0 +1,428 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.Random;
+
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * Computes starting positions for a graph with pivot multidimensional scaling, so that a force
+ * directed layout starts close to converged instead of spending most of its steps untangling. The graph
+ * distance from each node to a small set of pivots is found by breadth first search, and the nodes are
+ * placed so that their distances in the plane best match, following Brandes and Pich, "Eigensolver
+ * Methods for Progressive Multidimensional Scaling of Large Data". This takes O(k(n + m)) time for k
+ * pivots.
+ * <p>
+ * Distances are measured in hops, so nodes of degree one all end up the same distance from every pivot
+ * that isn't one of them, and would be placed on top of each other. Instead they are fanned out around
+ * their one neighbor after the rest of the graph has been placed.
+ * <p>
+ * The result is scaled so that edges average {@link GraphLayout#getNodeDist() nodeDist} in length, or if
+ * a {@link ForceModel} is given, to the size at which its repulsion and attraction balance out, which for
+ * most models is well above the ideal edge length. Gravity is not taken into account.
+ */
+public class PivotMdsPlacement {
+  private static final int POWER_ITERATIONS = 100;
+  private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+  /**
+   * Past this many pairs of nodes, the repulsion when finding the balanced size is estimated from a sample.
+   */
+  private static final int MAX_PAIRS = 20000;
+
+  private int pivotCount = 50;
+  private ForceModel forceModel;
+
+  /**
+   * Sets how many pivots to measure distances from. More pivots give a more faithful placement, at the
+   * cost of a breadth first search over the graph for each. Defaults to 50.
+   *
+   * @param pivotCount the number of pivots to use
+   */
+  public void setPivotCount(int pivotCount) {
+    assert pivotCount >= 2;
+    this.pivotCount = pivotCount;
+  }
+
+  public int getPivotCount() {
+    return pivotCount;
+  }
+
+  /**
+   * Sets the force model the layout will be run with, so that the graph can be placed at the size the
+   * model will settle it at. Defaults to null, to scale edges to the ideal edge length instead.
+   *
+   * @param forceModel the model to balance, or null
+   */
+  public void setForceModel(ForceModel forceModel) {
+    this.forceModel = forceModel;
+  }
+
+  public ForceModel getForceModel() {
+    return forceModel;
+  }
+
+  /**
+   * Moves every unlocked node in the layout to its computed position, centered where the nodes were
+   * before. Nodes that are moved lose their velocity.
+   *
+   * @param layout the graph to place
+   */
+  public <N extends Node> void place(GraphLayout<N, ?> layout) {
+    int count = layout.getNodeCount();
+    if (count < 2) {
+      return;
+    }
+    int edgeCount = layout.getEdgeCount();
+    int[] edgeTo = layout.getEdgeTo(), edgeFrom = layout.getEdgeFrom();
+
+    //neighbors of each node in compressed sparse row form
+    int[] start = new int[count + 1];
+    for (int e = 0; e < edgeCount; e++) {
+      start[edgeTo[e] + 1]++;
+      start[edgeFrom[e] + 1]++;
+    }
+    for (int i = 0; i < count; i++) {
+      start[i + 1] += start[i];
+    }
+    int[] adjacency = new int[start[count]];
+    int[] fill = new int[count];
+    System.arraycopy(start, 0, fill, 0, count);
+    for (int e = 0; e < edgeCount; e++) {
+      adjacency[fill[edgeTo[e]]++] = edgeFrom[e];
+      adjacency[fill[edgeFrom[e]]++] = edgeTo[e];
+    }
+
+    double[][] b = pivotDistances(count, start, adjacency);
+    doubleCenter(b, count);
+
+    //the two principal directions of the pivot distances give the coordinates
+    int k = b.length;
+    double[][] product = new double[k][k];
+    for (int p = 0; p < k; p++) {
+      for (int q = p; q < k; q++) {
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+          sum += b[p][i] * b[q][i];
+        }
+        product[p][q] = sum;
+        product[q][p] = sum;
+      }
+    }
+    double[] first = eigenvector(product, null);
+    double[] second = eigenvector(product, first);
+    double[] x = new double[count];
+    double[] y = new double[count];
+    for (int p = 0; p < k; p++) {
+      for (int i = 0; i < count; i++) {
+        x[i] += b[p][i] * first[p];
+        y[i] += b[p][i] * second[p];
+      }
+    }
+
+    //work in units of one edge, checked before leaves are fanned out at exactly that length
+    double length = 0;
+    for (int e = 0; e < edgeCount; e++) {
+      double dx = x[edgeTo[e]] - x[edgeFrom[e]], dy = y[edgeTo[e]] - y[edgeFrom[e]];
+      length += Math.sqrt(dx * dx + dy * dy);
+    }
+    double unit = length > 0 ? edgeCount / length : 1;
+    for (int i = 0; i < count; i++) {
+      //nudge each node a little, so that nodes placed together can still push each other apart
+      x[i] = x[i] * unit + Math.cos(i * GOLDEN_ANGLE) / 20;
+      y[i] = y[i] * unit + Math.sin(i * GOLDEN_ANGLE) / 20;
+    }
+    fanOutLeaves(x, y, count, start, adjacency);
+
+    double nodeDist = layout.getNodeDist();
+    double scale = forceModel == null ? nodeDist : balancedScale(x, y, count, start, edgeTo, edgeFrom,
+        edgeCount, nodeDist);
+    for (int i = 0; i < count; i++) {
+      x[i] *= scale;
+      y[i] *= scale;
+    }
+
+    //keep the graph centered where it was
+    double[] oldX = layout.getX(), oldY = layout.getY();
+    double shiftX = 0, shiftY = 0;
+    for (int i = 0; i < count; i++) {
+      shiftX += oldX[i] - x[i];
+      shiftY += oldY[i] - y[i];
+    }
+    shiftX /= count;
+    shiftY /= count;
+    List<N> nodes = layout.getNodes();
+    boolean[] locked = layout.getLockedFlags();
+    for (int i = 0; i < count; i++) {
+      if (!locked[i]) {
+        layout.setPosition(nodes.get(i), x[i] + shiftX, y[i] + shiftY);
+      }
+    }
+  }
+
+  /**
+   * Picks pivots spread as far apart as possible, each the node furthest from those already picked, and
+   * returns the squared distance from each pivot to every node. Nodes that can't be reached from a pivot
+   * are treated as one hop further away than the furthest that can.
+   */
+  private double[][] pivotDistances(int count, int[] start, int[] adjacency) {
+    int k = Math.min(pivotCount, count);
+    double[][] squared = new double[k][count];
+    int[] distance = new int[count];
+    int[] queue = new int[count];
+    int[] nearest = new int[count];
+    for (int i = 0; i < count; i++) {
+      nearest[i] = Integer.MAX_VALUE;
+    }
+    int pivot = 0;
+    for (int p = 0; p < k; p++) {
+      for (int i = 0; i < count; i++) {
+        distance[i] = -1;
+      }
+      distance[pivot] = 0;
+      queue[0] = pivot;
+      int head = 0, tail = 1;
+      while (head < tail) {
+        int node = queue[head++];
+        for (int a = start[node]; a < start[node + 1]; a++) {
+          int next = adjacency[a];
+          if (distance[next] == -1) {
+            distance[next] = distance[node] + 1;
+            queue[tail++] = next;
+          }
+        }
+      }
+      int unreachable = distance[queue[tail - 1]] + 1;
+
+      int next = pivot;
+      for (int i = 0; i < count; i++) {
+        int d = distance[i] == -1 ? unreachable : distance[i];
+        squared[p][i] = (double) d * d;
+        nearest[i] = Math.min(nearest[i], d);
+        if (nearest[i] > nearest[next]) {
+          next = i;
+        }
+      }
+      pivot = next;
+    }
+    return squared;
+  }
+
+  /**
+   * Turns squared distances into inner products, by subtracting the mean of each row and column and
+   * adding back the overall mean.
+   */
+  private static void doubleCenter(double[][] b, int count) {
+    int k = b.length;
+    double[] columnMean = new double[count];
+    double total = 0;
+    for (int p = 0; p < k; p++) {
+      double rowMean = 0;
+      for (int i = 0; i < count; i++) {
+        rowMean += b[p][i];
+        columnMean[i] += b[p][i] / k;
+      }
+      total += rowMean;
+      rowMean /= count;
+      for (int i = 0; i < count; i++) {
+        b[p][i] -= rowMean;
+      }
+    }
+    double mean = total / ((double) k * count);
+    for (int p = 0; p < k; p++) {
+      for (int i = 0; i < count; i++) {
+        b[p][i] = -0.5 * (b[p][i] - columnMean[i] + mean);
+      }
+    }
+  }
+
+  /**
+   * Finds the dominant eigenvector of a symmetric matrix by power iteration, kept orthogonal to the
+   * given vector if any so that the second can be found once the first is known.
+   */
+  private static double[] eigenvector(double[][] matrix, double[] orthogonalTo) {
+    int k = matrix.length;
+    double[] v = new double[k];
+    for (int p = 0; p < k; p++) {
+      //deterministic start, unlikely to be orthogonal to the answer, and different for the second vector
+      //so that it isn't left with nothing once the first is taken out
+      v[p] = Math.sin((p + 1) * (orthogonalTo == null ? 1.0 : 2.5));
+    }
+    double[] next = new double[k];
+    for (int iteration = 0; iteration < POWER_ITERATIONS; iteration++) {
+      orthogonalize(v, orthogonalTo);
+      for (int p = 0; p < k; p++) {
+        double sum = 0;
+        for (int q = 0; q < k; q++) {
+          sum += matrix[p][q] * v[q];
+        }
+        next[p] = sum;
+      }
+      orthogonalize(next, orthogonalTo);
+      double norm = 0;
+      for (int p = 0; p < k; p++) {
+        norm += next[p] * next[p];
+      }
+      norm = Math.sqrt(norm);
+      if (norm == 0) {
+        break;
+      }
+      for (int p = 0; p < k; p++) {
+        v[p] = next[p] / norm;
+      }
+    }
+    return v;
+  }
+
+  private static void orthogonalize(double[] v, double[] unit) {
+    if (unit == null) {
+      return;
+    }
+    double dot = 0;
+    for (int p = 0; p < v.length; p++) {
+      dot += v[p] * unit[p];
+    }
+    for (int p = 0; p < v.length; p++) {
+      v[p] -= dot * unit[p];
+    }
+  }
+
+  /**
+   * Finds the edge length at which the force model's repulsion and attraction balance for the given
+   * shape, in which edges average one unit. By the virial theorem, a settled layout has the sum of each
+   * force times the distance it acts over cancel out, and for every model here the repulsion falls and
+   * the attraction grows as the graph is scaled up, so the balance can be found by bisection.
+   */
+  private double balancedScale(double[] x, double[] y, int count, int[] start, int[] edgeTo,
+      int[] edgeFrom, int edgeCount, double nodeDist) {
+    double[] mass = new double[count];
+    for (int i = 0; i < count; i++) {
+      mass[i] = forceModel.mass(start[i + 1] - start[i]);
+    }
+
+    //every pair if there are few enough, otherwise a fixed sample so the result is repeatable
+    long pairs = (long) count * (count - 1) / 2;
+    int samples = (int) Math.min(pairs, MAX_PAIRS);
+    int[] first = new int[samples], second = new int[samples];
+    if (samples == pairs) {
+      int s = 0;
+      for (int i = 0; i < count; i++) {
+        for (int j = i + 1; j < count; j++) {
+          first[s] = i;
+          second[s++] = j;
+        }
+      }
+    } else {
+      Random random = new Random(count);
+      for (int s = 0; s < samples; s++) {
+        first[s] = random.nextInt(count);
+        do {
+          second[s] = random.nextInt(count);
+        } while (second[s] == first[s]);
+      }
+    }
+    double weight = (double) pairs / samples;
+
+    double low = nodeDist / 10, high = nodeDist * 100;
+    if (virial(low, x, y, mass, first, second, weight, edgeTo, edgeFrom, edgeCount, nodeDist) < 0) {
+      return low;
+    }
+    if (virial(high, x, y, mass, first, second, weight, edgeTo, edgeFrom, edgeCount, nodeDist) > 0) {
+      //nothing holds the graph together, settle for the ideal edge length
+      return nodeDist;
+    }
+    for (int iteration = 0; iteration < 40; iteration++) {
+      double middle = Math.sqrt(low * high);
+      if (virial(middle, x, y, mass, first, second, weight, edgeTo, edgeFrom, edgeCount, nodeDist) > 0) {
+        low = middle;
+      } else {
+        high = middle;
+      }
+    }
+    return Math.sqrt(low * high);
+  }
+
+  /**
+   * Sums each force times the distance it acts over, with the shape scaled up by the given amount,
+   * positive if the repulsion is stronger.
+   */
+  private double virial(double scale, double[] x, double[] y, double[] mass, int[] first, int[] second,
+      double weight, int[] edgeTo, int[] edgeFrom, int edgeCount, double nodeDist) {
+    double repulsion = 0;
+    for (int s = 0; s < first.length; s++) {
+      int i = first[s], j = second[s];
+      double d = distance(scale, x[i] - x[j], y[i] - y[j]);
+      repulsion += forceModel.repulsion(d, mass[i], mass[j], nodeDist) * d;
+    }
+    double attraction = 0;
+    for (int e = 0; e < edgeCount; e++) {
+      int i = edgeTo[e], j = edgeFrom[e];
+      double d = distance(scale, x[i] - x[j], y[i] - y[j]);
+      attraction += forceModel.attraction(d, nodeDist) * d;
+    }
+    return repulsion * weight - attraction;
+  }
+
+  private static double distance(double scale, double dx, double dy) {
+    return Math.max(ForceDirectedLayoutEngine.MIN_DISTANCE, scale * Math.sqrt(dx * dx + dy * dy));
+  }
+
+  /**
+   * Spreads the nodes of degree one around their neighbor a unit edge apart, facing away from the
+   * neighbor's other neighbors, or all the way around if it has none.
+   */
+  private static void fanOutLeaves(double[] x, double[] y, int count, int[] start, int[] adjacency) {
+    for (int parent = 0; parent < count; parent++) {
+      int leaves = 0;
+      double awayX = 0, awayY = 0;
+      for (int a = start[parent]; a < start[parent + 1]; a++) {
+        int child = adjacency[a];
+        if (isLeaf(child, start)) {
+          leaves++;
+        } else {
+          awayX += x[parent] - x[child];
+          awayY += y[parent] - y[child];
+        }
+      }
+      if (leaves == 0 || (leaves == 1 && isLeaf(parent, start))) {
+        //nothing to fan out, or a lone edge which has already been placed well enough
+        continue;
+      }
+      boolean surrounded = awayX == 0 && awayY == 0;
+      double span = surrounded ? 2 * Math.PI : Math.min(Math.PI, leaves * Math.PI / 6);
+      double step = surrounded ? span / leaves : span / Math.max(1, leaves - 1);
+      double angle = Math.atan2(awayY, awayX) - (surrounded || leaves == 1 ? 0 : span / 2);
+      for (int a = start[parent]; a < start[parent + 1]; a++) {
+        int child = adjacency[a];
+        if (isLeaf(child, start)) {
+          x[child] = x[parent] + Math.cos(angle);
+          y[child] = y[parent] + Math.sin(angle);
+          angle += step;
+        }
+      }
+    }
+  }
+
+  private static boolean isLeaf(int node, int[] start) {
+    return start[node + 1] - start[node] == 1;
+  }
+}
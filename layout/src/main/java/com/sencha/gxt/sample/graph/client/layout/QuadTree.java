@@ -0,0 +1,281 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Barnes-Hut quadtree over a set of points, used to approximate the repulsion from distant clusters of
+ * nodes by a single body at their center of mass. Cells are stored in flat arrays so that the tree can
+ * be rebuilt every tick without allocating once it has grown to the size of the graph.
+ */
+public class QuadTree {
+  /**
+   * Past this depth bodies are chained in the same leaf instead of splitting further, so that nodes
+   * sitting on top of each other can't recurse forever.
+   */
+  private static final int MAX_DEPTH = 24;
+
+  private int cellCount;
+  private double[] centerX = new double[0];
+  private double[] centerY = new double[0];
+  private double[] halfSize = new double[0];
+  private double[] mass = new double[0];
+  private double[] massX = new double[0];
+  private double[] massY = new double[0];
+  private int[] firstChild = new int[0];
+  private int[] firstBody = new int[0];
+
+  private double[] bodyX = new double[0];
+  private double[] bodyY = new double[0];
+  private double[] bodyMass = new double[0];
+  private int[] nextBody = new int[0];
+
+  private final int[] stack = newStack();
+
+  /**
+   * Creates a scratch stack large enough to walk any tree, for callers querying one tree from several
+   * threads at once.
+   *
+   * @return a new stack for
+   *         {@link #accumulateRepulsion(int, double, double, double, double, ForceModel, double, double, double[], int[])}
+   */
+  public static int[] newStack() {
+    return new int[4 * MAX_DEPTH + 8];
+  }
+
+  /**
+   * Rebuilds the tree over the first {@code count} points in the given arrays. Indexes into those
+   * arrays are used to identify bodies when querying.
+   *
+   * @param x the x coordinate of each point
+   * @param y the y coordinate of each point
+   * @param masses the mass of each point, or null if every point has unit mass
+   * @param count the number of points to insert
+   */
+  public void build(double[] x, double[] y, double[] masses, int count) {
+    if (bodyX.length < count) {
+      bodyX = new double[count];
+      bodyY = new double[count];
+      bodyMass = new double[count];
+      nextBody = new int[count];
+    }
+    double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < count; i++) {
+      bodyX[i] = x[i];
+      bodyY[i] = y[i];
+      bodyMass[i] = masses == null ? 1 : masses[i];
+      minX = Math.min(minX, x[i]);
+      minY = Math.min(minY, y[i]);
+      maxX = Math.max(maxX, x[i]);
+      maxY = Math.max(maxY, y[i]);
+    }
+
+    cellCount = 0;
+    if (count == 0) {
+      return;
+    }
+    //square root cell, padded slightly so points on the far edge still fall inside
+    double half = Math.max(maxX - minX, maxY - minY) / 2 + 1;
+    newCell((minX + maxX) / 2, (minY + maxY) / 2, half);
+
+    for (int i = 0; i < count; i++) {
+      insert(i);
+    }
+
+    //turn the mass-weighted sums into centers of mass
+    for (int c = 0; c < cellCount; c++) {
+      massX[c] /= mass[c];
+      massY[c] /= mass[c];
+    }
+  }
+
+  /**
+   * Accumulates the repulsion felt by the given body from every other body in the tree, as described
+   * by the given {@link ForceModel}. Cells that are far enough away, relative to their size and the
+   * given theta, are treated as a single body at their center of mass, holding the total mass of the
+   * cell.
+   *
+   * @param self the index of the body to compute the force for, skipped when found in the tree
+   * @param x the x position of the body
+   * @param y the y position of the body
+   * @param selfMass the mass of the body
+   * @param theta the ratio of cell size to distance below which a cell is approximated
+   * @param model the model giving the repulsion between two bodies
+   * @param nodeDist the ideal edge length, passed through to the model
+   * @param minDistance the distance to use for bodies closer than this
+   * @param out array of at least two elements, the x and y force will be added to it
+   */
+  public void accumulateRepulsion(int self, double x, double y, double selfMass, double theta,
+      ForceModel model, double nodeDist, double minDistance, double[] out) {
+    accumulateRepulsion(self, x, y, selfMass, theta, model, nodeDist, minDistance, out, stack);
+  }
+
+  /**
+   * Accumulates repulsion as
+   * {@link #accumulateRepulsion(int, double, double, double, double, ForceModel, double, double, double[])},
+   * using the given scratch stack so that several threads can query the same tree once it is built.
+   *
+   * @param stack scratch space from {@link #newStack()}, not shared with other threads
+   */
+  public void accumulateRepulsion(int self, double x, double y, double selfMass, double theta,
+      ForceModel model, double nodeDist, double minDistance, double[] out, int[] stack) {
+    if (cellCount == 0) {
+      return;
+    }
+    int top = 0;
+    stack[top++] = 0;
+    while (top > 0) {
+      int cell = stack[--top];
+      if (firstChild[cell] == -1) {
+        //leaf, apply each body in it exactly
+        for (int b = firstBody[cell]; b != -1; b = nextBody[b]) {
+          if (b != self) {
+            addRepulsion(x, y, selfMass, bodyX[b], bodyY[b], bodyMass[b], model, nodeDist, minDistance, out);
+          }
+        }
+        continue;
+      }
+      double dx = x - massX[cell], dy = y - massY[cell];
+      double distance = Math.sqrt(dx * dx + dy * dy);
+      if (!contains(cell, x, y) && 2 * halfSize[cell] < theta * distance) {
+        //far enough away to treat the whole cell as one body
+        addRepulsion(x, y, selfMass, massX[cell], massY[cell], mass[cell], model, nodeDist, minDistance, out);
+      } else {
+        int child = firstChild[cell];
+        stack[top++] = child;
+        stack[top++] = child + 1;
+        stack[top++] = child + 2;
+        stack[top++] = child + 3;
+      }
+    }
+  }
+
+  private static void addRepulsion(double x, double y, double selfMass, double otherX, double otherY,
+      double otherMass, ForceModel model, double nodeDist, double minDistance, double[] out) {
+    double dx = x - otherX, dy = y - otherY;
+    double distance = Math.max(minDistance, Math.sqrt(dx * dx + dy * dy));
+    double force = model.repulsion(distance, selfMass, otherMass, nodeDist);
+    out[0] += dx / distance * force;
+    out[1] += dy / distance * force;
+  }
+
+  private boolean contains(int cell, double x, double y) {
+    double half = halfSize[cell];
+    return Math.abs(x - centerX[cell]) <= half && Math.abs(y - centerY[cell]) <= half;
+  }
+
+  private void insert(int b) {
+    double x = bodyX[b], y = bodyY[b], m = bodyMass[b];
+    int cell = 0;
+    int depth = 0;
+    while (true) {
+      mass[cell] += m;
+      massX[cell] += x * m;
+      massY[cell] += y * m;
+      if (firstChild[cell] != -1) {
+        cell = childFor(cell, x, y);
+        depth++;
+        continue;
+      }
+      if (firstBody[cell] == -1 || depth >= MAX_DEPTH) {
+        //empty leaf, or too deep to split - chain the body here
+        nextBody[b] = firstBody[cell];
+        firstBody[cell] = b;
+        return;
+      }
+      //occupied leaf, split it and push the existing body down a level
+      split(cell);
+      int existing = firstBody[cell];
+      firstBody[cell] = -1;
+      int target = childFor(cell, bodyX[existing], bodyY[existing]);
+      mass[target] += bodyMass[existing];
+      massX[target] += bodyX[existing] * bodyMass[existing];
+      massY[target] += bodyY[existing] * bodyMass[existing];
+      nextBody[existing] = -1;
+      firstBody[target] = existing;
+
+      cell = childFor(cell, x, y);
+      depth++;
+    }
+  }
+
+  private void split(int cell) {
+    double half = halfSize[cell] / 2;
+    double cx = centerX[cell], cy = centerY[cell];
+    //the new cell index may trigger a resize, so read everything needed first
+    int first = newCell(cx - half, cy - half, half);
+    newCell(cx + half, cy - half, half);
+    newCell(cx - half, cy + half, half);
+    newCell(cx + half, cy + half, half);
+    firstChild[cell] = first;
+  }
+
+  private int childFor(int cell, double x, double y) {
+    int child = firstChild[cell];
+    if (x >= centerX[cell]) {
+      child += 1;
+    }
+    if (y >= centerY[cell]) {
+      child += 2;
+    }
+    return child;
+  }
+
+  private int newCell(double cx, double cy, double half) {
+    if (cellCount == centerX.length) {
+      grow();
+    }
+    int cell = cellCount++;
+    centerX[cell] = cx;
+    centerY[cell] = cy;
+    halfSize[cell] = half;
+    mass[cell] = 0;
+    massX[cell] = 0;
+    massY[cell] = 0;
+    firstChild[cell] = -1;
+    firstBody[cell] = -1;
+    return cell;
+  }
+
+  private void grow() {
+    int size = Math.max(16, centerX.length * 2);
+    centerX = copyOf(centerX, size);
+    centerY = copyOf(centerY, size);
+    halfSize = copyOf(halfSize, size);
+    mass = copyOf(mass, size);
+    massX = copyOf(massX, size);
+    massY = copyOf(massY, size);
+    firstChild = copyOf(firstChild, size);
+    firstBody = copyOf(firstBody, size);
+  }
+
+  private static double[] copyOf(double[] array, int size) {
+    double[] copy = new double[size];
+    System.arraycopy(array, 0, copy, 0, array.length);
+    return copy;
+  }
+
+  private static int[] copyOf(int[] array, int size) {
+    int[] copy = new int[size];
+    System.arraycopy(array, 0, copy, 0, array.length);
+    return copy;
+  }
+}
@@ -0,0 +1,262 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Spatial hash over a set of points, bucketing them into square cells so that every point within a
+ * fixed cutoff radius of a query can be found by checking only the nine surrounding cells. Cells are
+ * hashed into a table sized from the number of points rather than the area they cover, so nodes flung
+ * far apart don't cost memory. Like {@link QuadTree}, everything is kept in flat arrays that are reused
+ * between builds.
+ * <p>
+ * A grid over points that only move a little at a time can be kept up to date with
+ * {@link #move(int, double, double)} instead of being rebuilt, and searched for the points near a position
+ * with {@link #findNearest(double, double, double)} and {@link #findWithin(double, double, double)}.
+ * Those searches share a buffer of results, so unlike the repulsion query they must not be run from
+ * several threads at once.
+ */
+public class UniformGrid {
+  private double cellSize;
+  private int count;
+  private int[] buckets = new int[0];
+  private int mask;
+
+  private double[] bodyX = new double[0];
+  private double[] bodyY = new double[0];
+  private double[] bodyMass = new double[0];
+  private int[] cellX = new int[0];
+  private int[] cellY = new int[0];
+  private int[] nextBody = new int[0];
+  private int[] found = new int[0];
+
+  /**
+   * Rebuilds the grid over the first {@code count} points in the given arrays. Indexes into those
+   * arrays are used to identify bodies when querying.
+   *
+   * @param x the x coordinate of each point
+   * @param y the y coordinate of each point
+   * @param masses the mass of each point, or null if every point has unit mass
+   * @param count the number of points to insert
+   * @param cellSize the width of each cell, which must be at least the cutoff radius of later queries
+   */
+  public void build(double[] x, double[] y, double[] masses, int count, double cellSize) {
+    assert cellSize > 0;
+    this.cellSize = cellSize;
+    this.count = count;
+    if (bodyX.length < count) {
+      bodyX = new double[count];
+      bodyY = new double[count];
+      bodyMass = new double[count];
+      cellX = new int[count];
+      cellY = new int[count];
+      nextBody = new int[count];
+    }
+    //at least twice as many buckets as bodies, as a power of two so the hash can be masked
+    int size = 16;
+    while (size < 2 * count) {
+      size *= 2;
+    }
+    if (buckets.length != size) {
+      buckets = new int[size];
+    }
+    mask = size - 1;
+    for (int b = 0; b < size; b++) {
+      buckets[b] = -1;
+    }
+
+    for (int i = 0; i < count; i++) {
+      bodyX[i] = x[i];
+      bodyY[i] = y[i];
+      bodyMass[i] = masses == null ? 1 : masses[i];
+      cellX[i] = (int) Math.floor(x[i] / cellSize);
+      cellY[i] = (int) Math.floor(y[i] / cellSize);
+      int bucket = hash(cellX[i], cellY[i]);
+      nextBody[i] = buckets[bucket];
+      buckets[bucket] = i;
+    }
+  }
+
+  /**
+   * Accumulates the repulsion felt by the given body from every other body closer than the cutoff, as
+   * described by the given {@link ForceModel}. The force is shifted down by its value at the cutoff, so
+   * that it falls smoothly to zero there instead of jumping as bodies cross it. Safe to call from
+   * several threads at once once the grid is built.
+   *
+   * @param self the index of the body to compute the force for, skipped when found in the grid
+   * @param x the x position of the body
+   * @param y the y position of the body
+   * @param selfMass the mass of the body
+   * @param cutoff the distance beyond which bodies are ignored, no more than the cell size
+   * @param model the model giving the repulsion between two bodies
+   * @param nodeDist the ideal edge length, passed through to the model
+   * @param minDistance the distance to use for bodies closer than this
+   * @param out array of at least two elements, the x and y force will be added to it
+   */
+  public void accumulateRepulsion(int self, double x, double y, double selfMass, double cutoff,
+      ForceModel model, double nodeDist, double minDistance, double[] out) {
+    assert cutoff <= cellSize;
+    if (count == 0) {
+      return;
+    }
+    int cx = (int) Math.floor(x / cellSize);
+    int cy = (int) Math.floor(y / cellSize);
+    double cutoffSquared = cutoff * cutoff;
+    for (int gx = cx - 1; gx <= cx + 1; gx++) {
+      for (int gy = cy - 1; gy <= cy + 1; gy++) {
+        for (int b = buckets[hash(gx, gy)]; b != -1; b = nextBody[b]) {
+          //other cells may share the bucket, only look at bodies really in this cell
+          if (b == self || cellX[b] != gx || cellY[b] != gy) {
+            continue;
+          }
+          double dx = x - bodyX[b], dy = y - bodyY[b];
+          double distanceSquared = dx * dx + dy * dy;
+          if (distanceSquared >= cutoffSquared) {
+            continue;
+          }
+          double distance = Math.max(minDistance, Math.sqrt(distanceSquared));
+          double force = model.repulsion(distance, selfMass, bodyMass[b], nodeDist)
+              - model.repulsion(Math.max(minDistance, cutoff), selfMass, bodyMass[b], nodeDist);
+          out[0] += dx / distance * force;
+          out[1] += dy / distance * force;
+        }
+      }
+    }
+  }
+
+  /**
+   * Moves a point already in the grid, only relinking it if it crossed into another cell.
+   *
+   * @param i the index of the point, as passed to {@link #build(double[], double[], double[], int, double)}
+   * @param x the new x coordinate of the point
+   * @param y the new y coordinate of the point
+   */
+  public void move(int i, double x, double y) {
+    assert i < count;
+    bodyX[i] = x;
+    bodyY[i] = y;
+    int cx = (int) Math.floor(x / cellSize);
+    int cy = (int) Math.floor(y / cellSize);
+    if (cx == cellX[i] && cy == cellY[i]) {
+      return;
+    }
+    int bucket = hash(cellX[i], cellY[i]);
+    if (buckets[bucket] == i) {
+      buckets[bucket] = nextBody[i];
+    } else {
+      int b = buckets[bucket];
+      while (nextBody[b] != i) {
+        b = nextBody[b];
+      }
+      nextBody[b] = nextBody[i];
+    }
+    cellX[i] = cx;
+    cellY[i] = cy;
+    bucket = hash(cx, cy);
+    nextBody[i] = buckets[bucket];
+    buckets[bucket] = i;
+  }
+
+  /**
+   * Finds the point closest to the given position, no further away than the given radius.
+   *
+   * @param x the x coordinate to search around
+   * @param y the y coordinate to search around
+   * @param radius the furthest a point may be from the position
+   * @return the index of the nearest point, or -1 if none are within the radius
+   */
+  public int findNearest(double x, double y, double radius) {
+    int nearest = -1;
+    double best = radius * radius;
+    int hits = findWithin(x, y, radius);
+    for (int k = 0; k < hits; k++) {
+      int b = found[k];
+      double dx = x - bodyX[b], dy = y - bodyY[b];
+      double distanceSquared = dx * dx + dy * dy;
+      if (distanceSquared <= best) {
+        best = distanceSquared;
+        nearest = b;
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * Finds every point no further than the given radius from the given position, read back with
+   * {@link #getFound(int)}. Only the cells the radius reaches are checked, or every point if that
+   * would be fewer.
+   *
+   * @param x the x coordinate to search around
+   * @param y the y coordinate to search around
+   * @param radius the furthest a point may be from the position
+   * @return the number of points found
+   */
+  public int findWithin(double x, double y, double radius) {
+    if (found.length < count) {
+      found = new int[bodyX.length];
+    }
+    double radiusSquared = radius * radius;
+    int hits = 0;
+    int minX = (int) Math.floor((x - radius) / cellSize), maxX = (int) Math.floor((x + radius) / cellSize);
+    int minY = (int) Math.floor((y - radius) / cellSize), maxY = (int) Math.floor((y + radius) / cellSize);
+    if ((double) (maxX - minX + 1) * (maxY - minY + 1) > count) {
+      for (int b = 0; b < count; b++) {
+        double dx = x - bodyX[b], dy = y - bodyY[b];
+        if (dx * dx + dy * dy <= radiusSquared) {
+          found[hits++] = b;
+        }
+      }
+      return hits;
+    }
+    for (int gx = minX; gx <= maxX; gx++) {
+      for (int gy = minY; gy <= maxY; gy++) {
+        for (int b = buckets[hash(gx, gy)]; b != -1; b = nextBody[b]) {
+          //other cells may share the bucket, only look at bodies really in this cell
+          if (cellX[b] != gx || cellY[b] != gy) {
+            continue;
+          }
+          double dx = x - bodyX[b], dy = y - bodyY[b];
+          if (dx * dx + dy * dy <= radiusSquared) {
+            found[hits++] = b;
+          }
+        }
+      }
+    }
+    return hits;
+  }
+
+  /**
+   * Gets one of the points found by the last call to {@link #findWithin(double, double, double)}.
+   *
+   * @param k which of the points found to return, less than the number found
+   * @return the index of the point
+   */
+  public int getFound(int k) {
+    return found[k];
+  }
+
+  public int size() {
+    return count;
+  }
+
+  private int hash(int x, int y) {
+    return (x * 73856093 ^ y * 19349663) & mask;
+  }
+}
@@ -0,0 +1,118 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Damped velocity Verlet integration. Each node's velocity is advanced using the average of the force
+ * from the previous step and the current one, which tracks the motion of springs far more closely than
+ * {@link EulerIntegrator}. That allows a much larger time step before springs start to overshoot, so
+ * the layout untangles and settles in a fraction of the steps.
+ */
+public class VerletIntegrator implements Integrator {
+  private final double timeStep;
+  private final double damping;
+  private double maxStep = 100;
+
+  /**
+   * Creates an integrator with a time step of three and 3% damping per step, which stays stable even
+   * for a node with a hundred edges under {@link ForceDirectedLayoutEngine}'s default forces.
+   */
+  public VerletIntegrator() {
+    this(3, 0.03);
+  }
+
+  /**
+   * Creates an integrator with the given time step and damping.
+   *
+   * @param timeStep how far to advance the simulation on each step
+   * @param damping fraction of velocity lost per step, from 0 to 1
+   */
+  public VerletIntegrator(double timeStep, double damping) {
+    assert timeStep > 0;
+    assert damping >= 0 && damping <= 1;
+    this.timeStep = timeStep;
+    this.damping = damping;
+  }
+
+  public double getTimeStep() {
+    return timeStep;
+  }
+
+  public double getDamping() {
+    return damping;
+  }
+
+  /**
+   * Sets the furthest a single node may move in one step, which keeps very stiff springs from
+   * overshooting further on every step until the layout blows apart. Defaults to 100.
+   *
+   * @param maxStep the largest distance to move a node
+   */
+  public void setMaxStep(double maxStep) {
+    assert maxStep > 0;
+    this.maxStep = maxStep;
+  }
+
+  public double getMaxStep() {
+    return maxStep;
+  }
+
+  @Override
+  public void prepare(GraphLayout<?, ?> layout) {
+    //nothing global to compute
+  }
+
+  @Override
+  public void integrate(GraphLayout<?, ?> layout, int start, int end, double[] statistics) {
+    double[] x = layout.getX(), y = layout.getY();
+    double[] vx = layout.getVelocityX(), vy = layout.getVelocityY();
+    double[] fx = layout.getForceX(), fy = layout.getForceY();
+    double[] previousFx = layout.getPreviousForceX(), previousFy = layout.getPreviousForceY();
+    boolean[] locked = layout.getLockedFlags();
+    double dt = timeStep;
+    for (int i = start; i < end; i++) {
+      if (locked[i]) {
+        continue;
+      }
+      //finish advancing the velocity now that the force at the current position is known
+      vx[i] = (vx[i] + (previousFx[i] + fx[i]) * dt / 2) * (1 - damping);
+      vy[i] = (vy[i] + (previousFy[i] + fy[i]) * dt / 2) * (1 - damping);
+
+      double dx = vx[i] * dt + fx[i] * dt * dt / 2;
+      double dy = vy[i] * dt + fy[i] * dt * dt / 2;
+      double step = Math.sqrt(dx * dx + dy * dy);
+      if (step > maxStep) {
+        double scale = maxStep / step;
+        dx *= scale;
+        dy *= scale;
+        vx[i] *= scale;
+        vy[i] *= scale;
+      }
+      x[i] += dx;
+      y[i] += dy;
+      previousFx[i] = fx[i];
+      previousFy[i] = fy[i];
+
+      statistics[0] += (vx[i] * vx[i] + vy[i] * vy[i]) / 2;
+      statistics[1] = Math.max(statistics[1], Math.sqrt(dx * dx + dy * dy));
+    }
+  }
+}
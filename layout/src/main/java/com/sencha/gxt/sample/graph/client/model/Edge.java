@@ -50,6 +50,7 @@ public class Edge {
   
   @Override
   public int hashCode() {
-    return to.hashCode() ^ from.hashCode();
+    //not a plain xor, nodes numbered in sequence would put most edges of a ring or grid in a few buckets
+    return 31 * to.hashCode() + from.hashCode();
   }
 }
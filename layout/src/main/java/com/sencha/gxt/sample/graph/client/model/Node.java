@@ -25,7 +25,26 @@ public class Node {
   private static int NEXT_ID = 0;
 
   //not final for rpc support
-  private int id = NEXT_ID++;
+  private int id;
+
+  /**
+   * Creates a node with the next unused id.
+   */
+  public Node() {
+    id = NEXT_ID++;
+  }
+
+  /**
+   * Creates a node with the given id, so that building the same graph twice gives equal nodes no matter
+   * what else was created in between. Ids must be unique within a graph - nodes created afterward
+   * with {@link #Node()} are numbered past this one, but nodes created before may already have it.
+   *
+   * @param id the id of the node
+   */
+  public Node(int id) {
+    this.id = id;
+    NEXT_ID = Math.max(NEXT_ID, id + 1);
+  }
 
   public int getId() {
     return id;
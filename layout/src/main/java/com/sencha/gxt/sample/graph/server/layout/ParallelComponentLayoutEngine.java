@@ -0,0 +1,109 @@
+package com.sencha.gxt.sample.graph.server.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.sencha.gxt.sample.graph.client.layout.Clock;
+import com.sencha.gxt.sample.graph.client.layout.ComponentLayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.GraphLayout;
+import com.sencha.gxt.sample.graph.client.layout.LayoutProfiler;
+
+/**
+ * JVM-only variant of {@link ComponentLayoutEngine} which lays out the components of a graph
+ * concurrently in a {@link ForkJoinPool}. Each component only touches the state of its own nodes, so
+ * no synchronization is needed, but each must have an engine of its own - the factory must create a
+ * new engine every time it is called.
+ */
+public class ParallelComponentLayoutEngine extends ComponentLayoutEngine {
+  private final ForkJoinPool pool;
+
+  /**
+   * Creates an engine using a new pool with one thread per available processor.
+   *
+   * @param factory creates a new engine for each component
+   */
+  public ParallelComponentLayoutEngine(EngineFactory factory) {
+    this(factory, new ForkJoinPool());
+  }
+
+  /**
+   * Creates an engine running its tasks in the given pool.
+   *
+   * @param factory creates a new engine for each component
+   * @param pool the pool to run layout tasks in
+   */
+  public ParallelComponentLayoutEngine(EngineFactory factory, ForkJoinPool pool) {
+    super(factory);
+    this.pool = pool;
+  }
+
+  @Override
+  protected void stepParts(GraphLayout<?, ?> layout, List<Part> parts) {
+    if (!parts.isEmpty()) {
+      //profilers aren't safe to share between threads, so components stepped together go untimed
+      LayoutProfiler profiler = layout.getProfiler();
+      layout.setProfiler(null);
+      try {
+        pool.invoke(new PartTask(layout, parts, 0, parts.size()));
+      } finally {
+        layout.setProfiler(profiler);
+      }
+    }
+  }
+
+  /**
+   * Runs a whole step regardless of the deadline, as {@link ParallelLayoutEngine} does.
+   */
+  @Override
+  public boolean stepUntil(GraphLayout<?, ?> layout, Clock clock, double deadline) {
+    step(layout);
+    return true;
+  }
+
+  private class PartTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final GraphLayout<?, ?> layout;
+    private final List<Part> parts;
+    private final int start;
+    private final int end;
+
+    PartTask(GraphLayout<?, ?> layout, List<Part> parts, int start, int end) {
+      this.layout = layout;
+      this.parts = parts;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start > 1) {
+        int mid = (start + end) >>> 1;
+        invokeAll(new PartTask(layout, parts, start, mid), new PartTask(layout, parts, mid, end));
+        return;
+      }
+      stepPart(layout, parts.get(start));
+    }
+  }
+}
@@ -0,0 +1,261 @@
+package com.sencha.gxt.sample.graph.server.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.sencha.gxt.sample.graph.client.layout.Clock;
+import com.sencha.gxt.sample.graph.client.layout.ForceDirectedLayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.ForceModel;
+import com.sencha.gxt.sample.graph.client.layout.GraphLayout;
+import com.sencha.gxt.sample.graph.client.layout.LayoutProfiler;
+import com.sencha.gxt.sample.graph.client.layout.LayoutProfiler.Phase;
+import com.sencha.gxt.sample.graph.client.layout.QuadTree;
+import com.sencha.gxt.sample.graph.client.layout.UniformGrid;
+
+/**
+ * JVM-only variant of {@link ForceDirectedLayoutEngine} for large graphs, which splits each step across
+ * a {@link ForkJoinPool}. The force model is the same; each task owns a contiguous range of nodes and
+ * only ever writes to those nodes, so no synchronization is needed within a phase. Edge forces are
+ * gathered per node from an adjacency list rather than scattered per edge, so two tasks never update
+ * the same node. Results match the sequential engine up to the order floating point sums are taken in.
+ */
+public class ParallelLayoutEngine extends ForceDirectedLayoutEngine {
+  /**
+   * Nodes per task when computing forces, each of which costs O(n) or O(log n) to update.
+   */
+  private static final int FORCE_THRESHOLD = 64;
+  /**
+   * Nodes per task when integrating, each of which is only a few operations.
+   */
+  private static final int INTEGRATE_THRESHOLD = 4096;
+
+  private final ForkJoinPool pool;
+
+  //neighbors of each node in compressed sparse row form, rebuilt when the shape of the graph changes
+  private GraphLayout<?, ?> adjacencyLayout;
+  private int adjacencyModCount;
+  private int[] adjacencyStart = new int[1];
+  private int[] adjacency = new int[0];
+
+  /**
+   * Creates an engine using a new pool with one thread per available processor.
+   */
+  public ParallelLayoutEngine() {
+    this(new ForkJoinPool());
+  }
+
+  /**
+   * Creates an engine running its tasks in the given pool.
+   *
+   * @param pool the pool to run layout tasks in
+   */
+  public ParallelLayoutEngine(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  @Override
+  public void step(GraphLayout<?, ?> layout) {
+    int count = layout.getNodeCount();
+    if (count == 0) {
+      //nothing moves, as the sequential engine reports for an empty graph
+      layout.setStepStatistics(0, 0);
+      return;
+    }
+    LayoutProfiler profiler = layout.getProfiler();
+    double time = profiler == null ? 0 : profiler.now();
+    buildAdjacency(layout);
+    prepareForces(layout);
+    QuadTree tree = getRepulsionMode() == RepulsionMode.BARNES_HUT ? buildQuadTree(layout) : null;
+    UniformGrid grid = getRepulsionMode() == RepulsionMode.GRID ? buildGrid(layout) : null;
+    if (profiler != null) {
+      time = profiler.lap(Phase.PREPARE, time);
+    }
+
+    //every node's forces are read from positions that don't change until every node has been visited,
+    //repulsion and attraction are separate passes over all nodes so that each can be timed
+    pool.invoke(new ForceTask(layout, tree, grid, false, 0, count));
+    if (profiler != null) {
+      time = profiler.lap(Phase.REPULSION, time);
+    }
+    pool.invoke(new ForceTask(layout, null, null, true, 0, count));
+    if (profiler != null) {
+      time = profiler.lap(Phase.ATTRACTION, time);
+    }
+    getIntegrator().prepare(layout);
+    IntegrateTask integrate = new IntegrateTask(layout, 0, count);
+    pool.invoke(integrate);
+    if (profiler != null) {
+      profiler.lap(Phase.INTEGRATION, time);
+    }
+    layout.setStepStatistics(integrate.statistics[0], integrate.statistics[1]);
+  }
+
+  /**
+   * Runs a whole step regardless of the deadline. Steps are already spread across every processor, and
+   * this engine is not meant for use in an animation loop where a step might need to wait for the next
+   * frame.
+   */
+  @Override
+  public boolean stepUntil(GraphLayout<?, ?> layout, Clock clock, double deadline) {
+    step(layout);
+    return true;
+  }
+
+  /**
+   * Pulls each node in the given range toward each of its neighbors. Equivalent to
+   * {@link #attract(GraphLayout)}, but visiting each edge once from each end instead of once in total.
+   */
+  private void attract(GraphLayout<?, ?> layout, int start, int end) {
+    double[] x = layout.getX(), y = layout.getY();
+    double[] fx = layout.getForceX(), fy = layout.getForceY();
+    boolean[] locked = layout.getLockedFlags();
+    double nodeDist = layout.getNodeDist();
+    ForceModel forceModel = getForceModel();
+    for (int i = start; i < end; i++) {
+      if (locked[i]) {//if locked, don't update the node's force
+        continue;
+      }
+      for (int a = adjacencyStart[i]; a < adjacencyStart[i + 1]; a++) {
+        int other = adjacency[a];
+        double distance = distance(x[i], y[i], x[other], y[other]);
+        double force = forceModel.attraction(distance, nodeDist);
+
+        //pull i toward the other node
+        fx[i] -= (x[i] - x[other]) / distance * force;
+        fy[i] -= (y[i] - y[other]) / distance * force;
+      }
+    }
+  }
+
+  private void buildAdjacency(GraphLayout<?, ?> layout) {
+    if (layout == adjacencyLayout && layout.getModCount() == adjacencyModCount) {
+      return;
+    }
+    int count = layout.getNodeCount();
+    int edgeCount = layout.getEdgeCount();
+    int[] edgeTo = layout.getEdgeTo(), edgeFrom = layout.getEdgeFrom();
+
+    if (adjacencyStart.length < count + 1) {
+      adjacencyStart = new int[count + 1];
+    }
+    if (adjacency.length < 2 * edgeCount) {
+      adjacency = new int[2 * edgeCount];
+    }
+    //count the degree of each node, then turn that into the offset where its neighbors start
+    for (int i = 0; i <= count; i++) {
+      adjacencyStart[i] = 0;
+    }
+    for (int e = 0; e < edgeCount; e++) {
+      adjacencyStart[edgeTo[e] + 1]++;
+      adjacencyStart[edgeFrom[e] + 1]++;
+    }
+    for (int i = 0; i < count; i++) {
+      adjacencyStart[i + 1] += adjacencyStart[i];
+    }
+    int[] next = new int[count];
+    System.arraycopy(adjacencyStart, 0, next, 0, count);
+    for (int e = 0; e < edgeCount; e++) {
+      adjacency[next[edgeTo[e]]++] = edgeFrom[e];
+      adjacency[next[edgeFrom[e]]++] = edgeTo[e];
+    }
+
+    adjacencyLayout = layout;
+    adjacencyModCount = layout.getModCount();
+  }
+
+  /**
+   * Gathers the forces on a range of nodes, either clearing them and adding repulsion, or adding the
+   * attraction along edges and toward the center once repulsion is done.
+   */
+  private class ForceTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final GraphLayout<?, ?> layout;
+    private final QuadTree tree;
+    private final UniformGrid grid;
+    private final boolean attraction;
+    private final int start;
+    private final int end;
+
+    ForceTask(GraphLayout<?, ?> layout, QuadTree tree, UniformGrid grid, boolean attraction, int start, int end) {
+      this.layout = layout;
+      this.tree = tree;
+      this.grid = grid;
+      this.attraction = attraction;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start > FORCE_THRESHOLD) {
+        int mid = (start + end) >>> 1;
+        invokeAll(new ForceTask(layout, tree, grid, attraction, start, mid),
+            new ForceTask(layout, tree, grid, attraction, mid, end));
+        return;
+      }
+      if (attraction) {
+        attract(layout, start, end);
+        gravitate(layout, start, end);
+        return;
+      }
+      clearForces(layout, start, end);
+      if (tree != null) {
+        repulseBarnesHut(layout, tree, start, end, new double[2], QuadTree.newStack());
+      } else if (grid != null) {
+        repulseGrid(layout, grid, start, end, new double[2]);
+      } else {
+        repulseExact(layout, start, end);
+      }
+    }
+  }
+
+  private class IntegrateTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final GraphLayout<?, ?> layout;
+    private final int start;
+    private final int end;
+    private final double[] statistics = new double[2];
+
+    IntegrateTask(GraphLayout<?, ?> layout, int start, int end) {
+      this.layout = layout;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start > INTEGRATE_THRESHOLD) {
+        int mid = (start + end) >>> 1;
+        IntegrateTask left = new IntegrateTask(layout, start, mid);
+        IntegrateTask right = new IntegrateTask(layout, mid, end);
+        invokeAll(left, right);
+        statistics[0] = left.statistics[0] + right.statistics[0];
+        statistics[1] = Math.max(left.statistics[1], right.statistics[1]);
+        return;
+      }
+      integrate(layout, start, end, statistics);
+    }
+  }
+}
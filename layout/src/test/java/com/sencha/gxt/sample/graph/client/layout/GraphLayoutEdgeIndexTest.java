@@ -0,0 +1,108 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * Checks the edges GraphLayout keeps for each node, and the endpoint indexes it keeps for each edge,
+ * against a scan of every edge while nodes and edges are added and removed in random order.
+ */
+public class GraphLayoutEdgeIndexTest {
+  private static final int OPERATIONS = 2000;
+
+  @Test
+  public void testInterleavedChanges() {
+    Random random = new Random(3);
+    GraphLayout<Node, Edge> layout = new GraphLayout<Node, Edge>();
+    int nextId = 0;
+    for (int op = 0; op < OPERATIONS; op++) {
+      List<Node> nodes = layout.getNodes();
+      int choice = random.nextInt(10);
+      if (choice < 2 || nodes.size() < 2) {
+        layout.addNode(new Node(nextId++), 0, 0);
+      } else if (choice < 4) {
+        Node node = nodes.get(random.nextInt(nodes.size()));
+        Set<Edge> attached = new HashSet<Edge>(layout.getEdges(node));
+        List<Edge> removed = layout.removeNode(node);
+        assertEquals(attached, new HashSet<Edge>(removed));
+        assertTrue(!layout.contains(node));
+      } else if (choice < 5) {
+        //an edge added before one of its nodes, which leaves the endpoint indexes to be resolved later
+        Node node = new Node(nextId++);
+        layout.addEdge(new Edge(node, nodes.get(random.nextInt(nodes.size()))));
+        layout.addNode(node, 0, 0);
+      } else if (choice < 8) {
+        Node to = nodes.get(random.nextInt(nodes.size()));
+        Node from = nodes.get(random.nextInt(nodes.size()));
+        if (!to.equals(from)) {
+          layout.addEdge(new Edge(to, from));
+        }
+      } else if (layout.getEdgeCount() > 0) {
+        Edge edge = layout.getEdges().get(random.nextInt(layout.getEdgeCount()));
+        assertTrue(layout.removeEdge(new Edge(edge.getTo(), edge.getFrom())));
+        assertTrue(!layout.removeEdge(edge));
+      }
+
+      assertIncidentEdges(layout);
+      //asking for the endpoint indexes resolves them, so only do so now and then to leave some
+      //changes to be made while they are unresolved
+      if (op % 7 == 0) {
+        assertEndpoints(layout);
+      }
+    }
+  }
+
+  private static void assertIncidentEdges(GraphLayout<Node, Edge> layout) {
+    for (Node node : layout.getNodes()) {
+      Set<Edge> expected = new HashSet<Edge>();
+      for (Edge edge : layout.getEdges()) {
+        if (edge.getTo().equals(node) || edge.getFrom().equals(node)) {
+          expected.add(edge);
+        }
+      }
+      assertEquals("edges of node " + node.getId(), expected, new HashSet<Edge>(layout.getEdges(node)));
+      assertEquals(expected.size(), layout.getNeighbors(node).size());
+    }
+    assertEquals(layout.getEdges().size(), new HashSet<Edge>(layout.getEdges()).size());
+  }
+
+  private static void assertEndpoints(GraphLayout<Node, Edge> layout) {
+    int[] edgeTo = layout.getEdgeTo(), edgeFrom = layout.getEdgeFrom();
+    List<Edge> edges = new ArrayList<Edge>(layout.getEdges());
+    for (int e = 0; e < edges.size(); e++) {
+      assertEquals(layout.indexOf(edges.get(e).getTo()), edgeTo[e]);
+      assertEquals(layout.indexOf(edges.get(e).getFrom()), edgeFrom[e]);
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package com.sencha.gxt.sample.graph.client.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.sencha.gxt.sample.graph.client.layout.ForceDirectedLayoutEngine.RepulsionMode;
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * Checks that a graph built the same way, with the same seed, is laid out to bit-identical positions,
+ * including the random nudge given to nodes warm started part way through.
+ */
+public class SeededLayoutTest {
+  private static final int STEPS = 200;
+
+  /**
+   * Factory for a fresh engine, so that no state carries over from one run to the next.
+   */
+  private interface EngineFactory {
+    LayoutEngine create();
+  }
+
+  @Test
+  public void testExactEuler() {
+    assertRepeatable(new EngineFactory() {
+      @Override
+      public LayoutEngine create() {
+        return new ForceDirectedLayoutEngine();
+      }
+    });
+  }
+
+  @Test
+  public void testBarnesHutAdaptive() {
+    assertRepeatable(new EngineFactory() {
+      @Override
+      public LayoutEngine create() {
+        ForceDirectedLayoutEngine engine = new ForceDirectedLayoutEngine();
+        engine.setRepulsionMode(RepulsionMode.BARNES_HUT);
+        engine.setIntegrator(new AdaptiveIntegrator());
+        return engine;
+      }
+    });
+  }
+
+  @Test
+  public void testGridVerlet() {
+    assertRepeatable(new EngineFactory() {
+      @Override
+      public LayoutEngine create() {
+        ForceDirectedLayoutEngine engine = new ForceDirectedLayoutEngine();
+        engine.setRepulsionMode(RepulsionMode.GRID);
+        engine.setIntegrator(new VerletIntegrator());
+        return engine;
+      }
+    });
+  }
+
+  @Test
+  public void testMultilevel() {
+    assertRepeatable(new EngineFactory() {
+      @Override
+      public LayoutEngine create() {
+        return new MultilevelLayoutEngine();
+      }
+    });
+  }
+
+  @Test
+  public void testComponents() {
+    assertRepeatable(new EngineFactory() {
+      @Override
+      public LayoutEngine create() {
+        return new ComponentLayoutEngine(new ForceDirectedLayoutEngine());
+      }
+    });
+  }
+
+  @Test
+  public void testUnseededDiffers() {
+    double[] first = run(new ForceDirectedLayoutEngine(), new Random());
+    double[] second = run(new ForceDirectedLayoutEngine(), new Random());
+    assertFalse(Arrays.equals(first, second));
+  }
+
+  private static void assertRepeatable(EngineFactory factory) {
+    double[] first = run(factory.create(), new Random(42));
+    //nodes numbered automatically in between must not change the ids of the graph
+    for (int i = 0; i < 10; i++) {
+      new Node();
+    }
+    double[] second = run(factory.create(), new Random(42));
+    assertArrayEquals(first, second, 0);
+  }
+
+  /**
+   * Lays out two rings joined by a few chords, warm starting a handful of extra nodes half way through,
+   * and returns the final positions as x0, y0, x1, y1...
+   */
+  static double[] run(LayoutEngine engine, Random random) {
+    GraphLayout<Node, Edge> layout = new GraphLayout<Node, Edge>();
+    layout.setRandom(random);
+    int ring = 30;
+    for (int i = 0; i < 2 * ring; i++) {
+      layout.addNode(new Node(i), 500 * random.nextDouble(), 500 * random.nextDouble());
+    }
+    for (int i = 0; i < ring; i++) {
+      layout.addEdge(new Edge(new Node(i), new Node((i + 1) % ring)));
+      layout.addEdge(new Edge(new Node(ring + i), new Node(ring + (i + 1) % ring)));
+      if (i % 10 == 0) {
+        layout.addEdge(new Edge(new Node(i), new Node(ring + i)));
+      }
+    }
+    layout.placeNewNodes(0);
+
+    for (int step = 0; step < STEPS; step++) {
+      if (step == STEPS / 2) {
+        for (int i = 0; i < 5; i++) {
+          Node node = new Node(2 * ring + i);
+          layout.addUnplacedNode(node, 0, 0);
+          layout.addEdge(new Edge(node, new Node(7 * i)));
+        }
+        layout.placeNewNodes(20);
+      }
+      engine.step(layout);
+    }
+
+    int count = layout.getNodeCount();
+    double[] positions = new double[2 * count];
+    for (int i = 0; i < count; i++) {
+      positions[2 * i] = layout.getX()[i];
+      positions[2 * i + 1] = layout.getY()[i];
+    }
+    return positions;
+  }
+}
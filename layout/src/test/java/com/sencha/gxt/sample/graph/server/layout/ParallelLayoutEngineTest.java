@@ -0,0 +1,114 @@
+package com.sencha.gxt.sample.graph.server.layout;
+
+/*
+ * #%L
+ * simple-graph
+ * %%
+ * Copyright (C) 2013 Sencha Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.sencha.gxt.sample.graph.client.layout.ForceDirectedLayoutEngine;
+import com.sencha.gxt.sample.graph.client.layout.ForceDirectedLayoutEngine.RepulsionMode;
+import com.sencha.gxt.sample.graph.client.layout.GraphLayout;
+import com.sencha.gxt.sample.graph.client.model.Edge;
+import com.sencha.gxt.sample.graph.client.model.Node;
+
+/**
+ * Checks that the parallel engine lays a graph out the same as the sequential engine does, up to the
+ * order floating point sums are taken in. The graph is large enough to be split across several tasks.
+ */
+public class ParallelLayoutEngineTest {
+  private static final int NODES = 300;
+  private static final int STEPS = 50;
+  private static final double TOLERANCE = 1e-6;
+
+  @Test
+  public void testExact() {
+    assertMatchesSequential(RepulsionMode.EXACT);
+  }
+
+  @Test
+  public void testBarnesHut() {
+    assertMatchesSequential(RepulsionMode.BARNES_HUT);
+  }
+
+  @Test
+  public void testGrid() {
+    assertMatchesSequential(RepulsionMode.GRID);
+  }
+
+  @Test
+  public void testEmptyGraph() {
+    GraphLayout<Node, Edge> layout = createGraph();
+    ParallelLayoutEngine parallel = new ParallelLayoutEngine(new ForkJoinPool(4));
+    parallel.step(layout);
+    layout.clear();
+    parallel.step(layout);
+    assertEquals(0, layout.getKineticEnergy(), 0);
+    assertEquals(0, layout.getMaxDisplacement(), 0);
+  }
+
+  private static void assertMatchesSequential(RepulsionMode mode) {
+    ForceDirectedLayoutEngine sequential = new ForceDirectedLayoutEngine();
+    sequential.setRepulsionMode(mode);
+    ParallelLayoutEngine parallel = new ParallelLayoutEngine(new ForkJoinPool(4));
+    parallel.setRepulsionMode(mode);
+
+    GraphLayout<Node, Edge> expected = createGraph();
+    GraphLayout<Node, Edge> actual = createGraph();
+    for (int step = 0; step < STEPS; step++) {
+      sequential.step(expected);
+      parallel.step(actual);
+    }
+
+    for (int i = 0; i < NODES; i++) {
+      assertEquals("x of node " + i, expected.getX()[i], actual.getX()[i], TOLERANCE);
+      assertEquals("y of node " + i, expected.getY()[i], actual.getY()[i], TOLERANCE);
+    }
+    assertEquals(expected.getKineticEnergy(), actual.getKineticEnergy(), TOLERANCE);
+  }
+
+  /**
+   * Creates a ring with random chords across it, scattered at random, the same every time.
+   */
+  private static GraphLayout<Node, Edge> createGraph() {
+    Random random = new Random(7);
+    GraphLayout<Node, Edge> layout = new GraphLayout<Node, Edge>();
+    for (int i = 0; i < NODES; i++) {
+      layout.addNode(new Node(i), 1000 * random.nextDouble(), 1000 * random.nextDouble());
+    }
+    for (int i = 0; i < NODES; i++) {
+      layout.addEdge(new Edge(new Node(i), new Node((i + 1) % NODES)));
+      if (i % 5 == 0) {
+        int other = random.nextInt(NODES);
+        if (other != i) {
+          layout.addEdge(new Edge(new Node(i), new Node(other)));
+        }
+      }
+    }
+    //lock a few nodes, which the parallel engine must leave in place too
+    layout.setLocked(new Node(0), true);
+    layout.setLocked(new Node(NODES / 2), true);
+    return layout;
+  }
+}